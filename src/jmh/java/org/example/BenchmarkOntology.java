@@ -0,0 +1,42 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.Imports;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Stato condiviso dai benchmark: l'ontologia scelta dai parametri shape e size, la sua TBox e la TBox normalizzata.
+ * Le combinazioni con shape = football ignorano size; altre dimensioni si scelgono con -p size=n.
+ **/
+@State(Scope.Benchmark)
+public class BenchmarkOntology {
+
+    @Param({SyntheticOntologies.FOOTBALL, SyntheticOntologies.DEEP, SyntheticOntologies.WIDE,
+            SyntheticOntologies.CHAIN, SyntheticOntologies.NOMINAL})
+    public String shape;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    OWLDataFactory df;
+    OWLOntology ontology;
+    Set<OWLAxiom> tBox;
+    Set<OWLSubClassOfAxiom> normalizedAxioms;
+    MyReasoner normalizer;
+
+    @Setup
+    public void setUp() throws OWLOntologyCreationException {
+        OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+        this.df = man.getOWLDataFactory();
+        this.ontology = SyntheticOntologies.create(man, this.shape, this.size);
+        this.tBox = new HashSet<>(this.ontology.getTBoxAxioms(Imports.EXCLUDED));
+        //Il reasoner serve solo per normalization(), che non dipende dal suo stato
+        this.normalizer = new MyReasoner(this.ontology, false, 1, 0);
+        this.normalizer.dispose();
+        this.normalizedAxioms = this.normalizer.normalization(this.tBox, new TempClassTable(this.df));
+    }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo di normalizzazione dell'intera TBox, con una tabella delle classi temporanee nuova ad ogni invocazione:
+ * in sequenza con normalization(), e sul pool di threads thread di un reasoner con normalizeModule(), che indicizza
+ * anche il modulo. Sotto MyReasoner.PARALLEL_NORMALIZATION_THRESHOLD assiomi normalizeModule() resta sequenziale.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizationBenchmark {
+
+    /**
+     * Un reasoner lazy con il pool di normalizzazione di threads thread: non normalizza la TBox durante la costruzione.
+     **/
+    @State(Scope.Benchmark)
+    public static class Pool {
+
+        @Param({"1", "4"})
+        public int threads;
+
+        MyReasoner reasoner;
+
+        @Setup
+        public void setUp(BenchmarkOntology o) {
+            this.reasoner = new MyReasoner(o.ontology, false, this.threads, 0);
+        }
+
+        @TearDown
+        public void tearDown() {
+            this.reasoner.dispose();
+        }
+    }
+
+    @Benchmark
+    public Set<OWLSubClassOfAxiom> normalization(BenchmarkOntology o) {
+        return o.normalizer.normalization(o.tBox, new TempClassTable(o.df));
+    }
+
+    @Benchmark
+    public Module parallelNormalization(BenchmarkOntology o, Pool pool) {
+        return pool.reasoner.normalizeModule(o.tBox);
+    }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latenza di doQuery() e di doQueries() su un lotto di BATCH query tra classi con nome scelte in modo deterministico,
+ * con un reasoner lazy o eager. La cache delle risposte è disattivata, così che ogni query venga saturata.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"false", "true"})
+    public boolean eager;
+
+    private MyReasoner reasoner;
+    private List<OWLSubClassOfAxiom> queries;
+    private int next;
+
+    @Setup
+    public void setUp(BenchmarkOntology o) {
+        this.reasoner = new MyReasoner(o.ontology, this.eager, 1, 0);
+        this.queries = SyntheticOntologies.queries(o.ontology, BATCH, 42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.reasoner.dispose();
+    }
+
+    @Benchmark
+    public boolean singleQuery() {
+        OWLSubClassOfAxiom query = this.queries.get(this.next);
+        this.next = (this.next + 1) % this.queries.size();
+        return this.reasoner.doQuery(query);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Boolean> batchedQueries() {
+        return this.reasoner.doQueries(this.queries);
+    }
+}
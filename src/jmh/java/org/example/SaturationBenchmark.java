@@ -0,0 +1,29 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo di applicazione delle regole di completamento all'intera TBox normalizzata, fino al punto fisso.
+ * Ogni invocazione costruisce anche il dizionario e l'indice degli assiomi, come la costruzione di un reasoner eager.
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaturationBenchmark {
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Benchmark
+    public Saturation saturation(BenchmarkOntology o) {
+        ConceptDictionary dictionary = new ConceptDictionary(o.df);
+        Saturation saturation = new Saturation(dictionary, o.normalizedAxioms, new AxiomIndex(dictionary, o.normalizedAxioms));
+        saturation.saturate(this.threads);
+        return saturation;
+    }
+}
@@ -0,0 +1,150 @@
+package org.example;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.Imports;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Ontologie EL++ usate dai benchmark: l'ontologia del calcio distribuita con il progetto e ontologie sintetiche
+ * di dimensione size, generate in modo deterministico, che sollecitano ciascuna una parte diversa del reasoner: <br>
+ * - deep: una gerarchia lineare A0 ⊑ A1 ⊑ ... di size livelli, con una sottoclasse laterale per livello (CR1); <br>
+ * - wide: size classi definite da congiunzioni di 8 concetti primitivi, a sinistra e a destra della sussunzione (CR2); <br>
+ * - chain: una catena di size esistenziali Ai ⊑ ∃r.Ai+1, con esistenziali annidati da normalizzare (CR3, CR4); <br>
+ * - nominal: size classi collegate a size / 10 nominali, a loro volta collegati tra loro in un ciclo (CR6).
+ **/
+final class SyntheticOntologies {
+
+    static final String FOOTBALL = "football";
+    static final String DEEP = "deep";
+    static final String WIDE = "wide";
+    static final String CHAIN = "chain";
+    static final String NOMINAL = "nominal";
+
+    private static final String ONTOLOGY_IRI = "http://example.org/synthetic";
+    private static final String IRI_PREFIX = ONTOLOGY_IRI + "#";
+    private static final int CONJUNCTS = 8;
+    private static final int PRIMITIVES = 32;
+    private static final int NESTING = 4;
+
+    private final OWLDataFactory df;
+
+    private SyntheticOntologies(OWLDataFactory df) {
+        this.df = df;
+    }
+
+    /**
+     * @return l'ontologia del tipo shape con size concetti principali; size è ignorato per l'ontologia del calcio.
+     **/
+    static OWLOntology create(OWLOntologyManager man, String shape, int size) throws OWLOntologyCreationException {
+        if (FOOTBALL.equals(shape)) {
+            return man.loadOntologyFromOntologyDocument(new File("ontology/FOOTBALL_ONTOLOGY.rdf"));
+        }
+        SyntheticOntologies generator = new SyntheticOntologies(man.getOWLDataFactory());
+        Set<OWLAxiom> axioms;
+        switch (shape) {
+            case DEEP:
+                axioms = generator.deep(size);
+                break;
+            case WIDE:
+                axioms = generator.wide(size);
+                break;
+            case CHAIN:
+                axioms = generator.chain(size);
+                break;
+            case NOMINAL:
+                axioms = generator.nominal(size);
+                break;
+            default:
+                throw new IllegalArgumentException("Ontologia sintetica sconosciuta: " + shape);
+        }
+        return man.createOntology(axioms, IRI.create(ONTOLOGY_IRI + "/" + shape));
+    }
+
+    /**
+     * @return count query tra coppie di classi con nome di o, scelte in modo deterministico a partire da seed.
+     **/
+    static List<OWLSubClassOfAxiom> queries(OWLOntology o, int count, long seed) {
+        OWLDataFactory df = OWLManager.getOWLDataFactory();
+        List<OWLClass> classes = new ArrayList<>(new TreeSet<>(o.getClassesInSignature(Imports.EXCLUDED)));
+        classes.removeIf(c -> c.isOWLThing() || c.isOWLNothing());
+        Random random = new Random(seed);
+        List<OWLSubClassOfAxiom> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OWLClass subClass = classes.get(random.nextInt(classes.size()));
+            OWLClass superClass = classes.get(random.nextInt(classes.size()));
+            queries.add(df.getOWLSubClassOfAxiom(subClass, superClass));
+        }
+        return queries;
+    }
+
+    private Set<OWLAxiom> deep(int size) {
+        Set<OWLAxiom> axioms = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            axioms.add(subClassOf(clazz("A", i), clazz("A", i + 1)));
+            axioms.add(subClassOf(clazz("S", i), clazz("A", i)));
+        }
+        return axioms;
+    }
+
+    private Set<OWLAxiom> wide(int size) {
+        Random random = new Random(size);
+        Set<OWLAxiom> axioms = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            Set<OWLClassExpression> conjuncts = new HashSet<>();
+            while (conjuncts.size() < CONJUNCTS) {
+                conjuncts.add(clazz("P", random.nextInt(PRIMITIVES)));
+            }
+            OWLObjectIntersectionOf conjunction = this.df.getOWLObjectIntersectionOf(conjuncts);
+            axioms.add(subClassOf(conjunction, clazz("C", i)));    //Congiunzione a sinistra: CR2
+            axioms.add(subClassOf(clazz("D", i), conjunction));    //Congiunzione a destra: D ⊑ C per CR1 e CR2
+        }
+        return axioms;
+    }
+
+    private Set<OWLAxiom> chain(int size) {
+        OWLObjectProperty r = this.df.getOWLObjectProperty(IRI.create(IRI_PREFIX + "r"));
+        Set<OWLAxiom> axioms = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            axioms.add(subClassOf(clazz("A", i), this.df.getOWLObjectSomeValuesFrom(r, clazz("A", i + 1))));
+            axioms.add(subClassOf(this.df.getOWLObjectSomeValuesFrom(r, clazz("B", i + 1)), clazz("B", i)));
+            OWLClassExpression nested = clazz("A", i);
+            for (int depth = 0; depth < NESTING; depth++) {
+                nested = this.df.getOWLObjectSomeValuesFrom(r, nested);
+            }
+            axioms.add(subClassOf(clazz("E", i), nested));
+        }
+        axioms.add(subClassOf(clazz("A", size), clazz("B", size)));    //A0 ⊑ B0 attraversando l'intera catena
+        return axioms;
+    }
+
+    private Set<OWLAxiom> nominal(int size) {
+        OWLObjectProperty r = this.df.getOWLObjectProperty(IRI.create(IRI_PREFIX + "r"));
+        OWLObjectProperty s = this.df.getOWLObjectProperty(IRI.create(IRI_PREFIX + "s"));
+        int nominals = Math.max(1, size / 10);
+        Set<OWLAxiom> axioms = new HashSet<>();
+        for (int j = 0; j < nominals; j++) {
+            axioms.add(subClassOf(individual(j), clazz("O", j)));
+            axioms.add(subClassOf(individual(j), this.df.getOWLObjectSomeValuesFrom(s, individual((j + 1) % nominals))));
+            axioms.add(subClassOf(this.df.getOWLObjectSomeValuesFrom(r, clazz("O", j)), clazz("H", j)));
+        }
+        for (int i = 0; i < size; i++) {
+            axioms.add(subClassOf(clazz("A", i), this.df.getOWLObjectSomeValuesFrom(r, individual(i % nominals))));
+        }
+        return axioms;
+    }
+
+    private OWLClass clazz(String name, int index) {
+        return this.df.getOWLClass(IRI.create(IRI_PREFIX + name + index));
+    }
+
+    private OWLObjectOneOf individual(int index) {
+        return this.df.getOWLObjectOneOf(this.df.getOWLNamedIndividual(IRI.create(IRI_PREFIX + "o" + index)));
+    }
+
+    private OWLSubClassOfAxiom subClassOf(OWLClassExpression subClass, OWLClassExpression superClass) {
+        return this.df.getOWLSubClassOfAxiom(subClass, superClass);
+    }
+}
@@ -0,0 +1,304 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.*;
+
+import java.util.*;
+
+/**
+ * Indice degli assiomi normalizzati costruito in base al lato sinistro (LHS) di ciascun assioma.
+ * Ogni regola di completamento consulta solo gli assiomi che possono effettivamente essere applicati: <br>
+ * - CR1: LHS atomico (classe o singleton) e RHS non esistenziale, indicizzati per LHS <br>
+ * - CR2: LHS intersezione C1 ⊓ C2, indicizzati per ciascuno dei due congiunti <br>
+ * - CR3: LHS atomico e RHS esistenziale, indicizzati per LHS <br>
+ * - CR4: LHS esistenziale ∃r.C, indicizzati per ruolo r e filler C, e per filler C i ruoli r in cui compare
+ * <p>
+ * L'indice mantiene anche il profilo degli assiomi da cui SaturationPlan ricava le regole che possono essere applicate:
+ * quali forme di assioma sono presenti e quanti assiomi possono derivare Nothing.
+ * <p>
+ * Un indice può essere costruito sopra un indice padre (ad esempio per gli assiomi fittizi di una query):
+ * le ricerche restituiscono l'unione delle voci del figlio e del padre, senza copiare il padre.
+ * <p>
+ * Concetti e ruoli sono rappresentati dagli identificativi assegnati da un ConceptDictionary: il dizionario usato per
+ * un indice figlio deve estendere (o coincidere con) quello del padre.
+ * <p>
+ * Gli assiomi possono essere aggiunti e rimossi con add() e remove() quando l'ontologia cambia, ma solo mentre nessun
+ * indice figlio o saturazione lo sta leggendo.
+ **/
+class AxiomIndex {
+
+    private static final int[] NONE = new int[0];
+    private static final IntMap<int[]> NO_ENTRIES = new IntMap<>();
+
+    private final AxiomIndex parent;
+    private final IntMap<int[]> atomicToSuperClasses = new IntMap<>();
+    private final IntMap<int[]> atomicToExistentials = new IntMap<>();
+    private final IntMap<IntMap<int[]>> conjunctions = new IntMap<>();
+    private final IntMap<IntMap<int[]>> existentials = new IntMap<>();
+    private final IntMap<int[]> fillerToRoles = new IntMap<>();
+    private int bottomAxioms;
+
+    AxiomIndex(ConceptDictionary dictionary, Collection<OWLSubClassOfAxiom> normalizedAxioms) {
+        this(null, dictionary, normalizedAxioms);
+    }
+
+    AxiomIndex(AxiomIndex parent, ConceptDictionary dictionary, Collection<OWLSubClassOfAxiom> normalizedAxioms) {
+        this.parent = parent;
+        for (OWLSubClassOfAxiom ax : normalizedAxioms) {
+            add(ax, dictionary);
+        }
+    }
+
+    /**
+     * Inserisce un assioma normalizzato nella struttura corrispondente alla forma del suo lato sinistro.
+     **/
+    void add(OWLSubClassOfAxiom ax, ConceptDictionary dictionary) {
+        OWLClassExpression subClass = ax.getSubClass();
+        OWLClassExpression superClass = ax.getSuperClass();
+        if (derivesBottom(superClass)) {
+            this.bottomAxioms++;
+        }
+
+        switch (subClass.getClassExpressionType()) {
+            case OWL_CLASS:
+            case OBJECT_ONE_OF:
+                if (superClass.getClassExpressionType().equals(ClassExpressionType.OBJECT_SOME_VALUES_FROM)) {
+                    //La coppia (ruolo, filler) dell'esistenziale occupa due posizioni consecutive
+                    OWLObjectSomeValuesFrom someValuesFrom = (OWLObjectSomeValuesFrom) superClass;
+                    append(this.atomicToExistentials, dictionary.concept(subClass),
+                            dictionary.role(someValuesFrom.getProperty()), dictionary.concept(someValuesFrom.getFiller()));
+                } else {
+                    append(this.atomicToSuperClasses, dictionary.concept(subClass), dictionary.concept(superClass));
+                }
+                break;
+            case OBJECT_INTERSECTION_OF:
+                List<OWLClassExpression> operands = ((OWLObjectIntersectionOf) subClass).getOperandsAsList();
+                int superId = dictionary.concept(superClass);
+                int first = dictionary.concept(operands.get(0));
+                int second = dictionary.concept(operands.get(1));
+                append(this.conjunctions.computeIfAbsent(first, k -> new IntMap<>()), second, superId);
+                append(this.conjunctions.computeIfAbsent(second, k -> new IntMap<>()), first, superId);
+                break;
+            case OBJECT_SOME_VALUES_FROM:
+                OWLObjectSomeValuesFrom someValuesFrom = (OWLObjectSomeValuesFrom) subClass;
+                int role = dictionary.role(someValuesFrom.getProperty());
+                int filler = dictionary.concept(someValuesFrom.getFiller());
+                IntMap<int[]> onRole = this.existentials.computeIfAbsent(role, k -> new IntMap<>());
+                if (!onRole.containsKey(filler)) {
+                    append(this.fillerToRoles, filler, role);
+                }
+                append(onRole, filler, dictionary.concept(superClass));
+                break;
+        }
+    }
+
+    /**
+     * @return true se superClass, come lato destro di un assioma, può portare Nothing in un insieme S: Nothing stesso
+     * (regole CR1, CR2 e CR4) oppure ∃r.Nothing (regola CR3, seguita da CR5).
+     **/
+    private static boolean derivesBottom(OWLClassExpression superClass) {
+        if (superClass.getClassExpressionType().equals(ClassExpressionType.OBJECT_SOME_VALUES_FROM)) {
+            superClass = ((OWLObjectSomeValuesFrom) superClass).getFiller();
+        }
+        return superClass.isOWLNothing();
+    }
+
+    private static void append(IntMap<int[]> map, int key, int... values) {
+        int[] old = map.getOrDefault(key, NONE);
+        int[] result = Arrays.copyOf(old, old.length + values.length);
+        System.arraycopy(values, 0, result, old.length, values.length);
+        map.put(key, result);
+    }
+
+    /**
+     * Rimuove un assioma normalizzato inserito in precedenza con add(). Le voci del padre non vengono modificate.
+     **/
+    void remove(OWLSubClassOfAxiom ax, ConceptDictionary dictionary) {
+        OWLClassExpression subClass = ax.getSubClass();
+        OWLClassExpression superClass = ax.getSuperClass();
+        if (derivesBottom(superClass)) {
+            this.bottomAxioms--;
+        }
+
+        switch (subClass.getClassExpressionType()) {
+            case OWL_CLASS:
+            case OBJECT_ONE_OF:
+                if (superClass.getClassExpressionType().equals(ClassExpressionType.OBJECT_SOME_VALUES_FROM)) {
+                    OWLObjectSomeValuesFrom someValuesFrom = (OWLObjectSomeValuesFrom) superClass;
+                    discard(this.atomicToExistentials, dictionary.concept(subClass),
+                            dictionary.role(someValuesFrom.getProperty()), dictionary.concept(someValuesFrom.getFiller()));
+                } else {
+                    discard(this.atomicToSuperClasses, dictionary.concept(subClass), dictionary.concept(superClass));
+                }
+                break;
+            case OBJECT_INTERSECTION_OF:
+                List<OWLClassExpression> operands = ((OWLObjectIntersectionOf) subClass).getOperandsAsList();
+                int superId = dictionary.concept(superClass);
+                int first = dictionary.concept(operands.get(0));
+                int second = dictionary.concept(operands.get(1));
+                discard(this.conjunctions.getOrDefault(first, NO_ENTRIES), second, superId);
+                discard(this.conjunctions.getOrDefault(second, NO_ENTRIES), first, superId);
+                break;
+            case OBJECT_SOME_VALUES_FROM:
+                OWLObjectSomeValuesFrom someValuesFrom = (OWLObjectSomeValuesFrom) subClass;
+                int role = dictionary.role(someValuesFrom.getProperty());
+                int filler = dictionary.concept(someValuesFrom.getFiller());
+                IntMap<int[]> onRole = this.existentials.getOrDefault(role, NO_ENTRIES);
+                discard(onRole, filler, dictionary.concept(superClass));
+                if (!onRole.containsKey(filler)) {
+                    discard(this.fillerToRoles, filler, role);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Rimuove da map.get(key) la prima occorrenza di values, cercata tra i gruppi di values.length posizioni consecutive.
+     **/
+    private static void discard(IntMap<int[]> map, int key, int... values) {
+        int[] old = map.getOrDefault(key, NONE);
+        for (int i = 0; i < old.length; i += values.length) {
+            if (Arrays.equals(Arrays.copyOfRange(old, i, i + values.length), values)) {
+                if (old.length == values.length) {
+                    map.remove(key);
+                } else {
+                    int[] result = Arrays.copyOf(old, old.length - values.length);
+                    System.arraycopy(old, i + values.length, result, i, old.length - i - values.length);
+                    map.put(key, result);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return le super-classi non esistenziali E degli assiomi C ⊑ E con C = lhs (regola CR1).
+     **/
+    int[] superClassesOf(int lhs) {
+        int[] own = this.atomicToSuperClasses.getOrDefault(lhs, NONE);
+        return this.parent == null ? own : concat(this.parent.superClassesOf(lhs), own);
+    }
+
+    /**
+     * @return le super-classi esistenziali ∃r.E degli assiomi C ⊑ ∃r.E con C = lhs (regola CR3),
+     * come coppie consecutive (r, E).
+     **/
+    int[] existentialSuperClassesOf(int lhs) {
+        int[] own = this.atomicToExistentials.getOrDefault(lhs, NONE);
+        return this.parent == null ? own : concat(this.parent.existentialSuperClassesOf(lhs), own);
+    }
+
+    /**
+     * @return per ogni congiunto C2 tale che esiste un assioma conjunct ⊓ C2 ⊑ E, la lista delle super-classi E (regola CR2).
+     **/
+    IntMap<int[]> conjunctionsWith(int conjunct) {
+        IntMap<int[]> own = this.conjunctions.getOrDefault(conjunct, NO_ENTRIES);
+        return this.parent == null ? own : merge(this.parent.conjunctionsWith(conjunct), own);
+    }
+
+    /**
+     * @return per ogni filler C tale che esiste un assioma ∃relation.C ⊑ E, la lista delle super-classi E (regola CR4).
+     **/
+    IntMap<int[]> existentialsOn(int relation) {
+        IntMap<int[]> own = this.existentials.getOrDefault(relation, NO_ENTRIES);
+        return this.parent == null ? own : merge(this.parent.existentialsOn(relation), own);
+    }
+
+    /**
+     * @return i ruoli r tali che esiste un assioma ∃r.filler ⊑ E (regola CR4), ciascuno una sola volta.
+     **/
+    int[] rolesWithFiller(int filler) {
+        int[] own = this.fillerToRoles.getOrDefault(filler, NONE);
+        if (this.parent == null) {
+            return own;
+        }
+        int[] inherited = this.parent.rolesWithFiller(filler);
+        if (own.length == 0 || inherited.length == 0) {
+            return own.length == 0 ? inherited : own;
+        }
+        IntSet roles = IntSet.of(inherited);
+        for (int role : own) {
+            roles.add(role);
+        }
+        return roles.toArray();
+    }
+
+    /**
+     * @return true se esiste almeno un assioma ∃relation.C ⊑ E (regola CR4).
+     **/
+    boolean hasExistentialsOn(int relation) {
+        return !this.existentials.getOrDefault(relation, NO_ENTRIES).isEmpty()
+                || this.parent != null && this.parent.hasExistentialsOn(relation);
+    }
+
+    /**
+     * @return true se esiste almeno un assioma con lato sinistro intersezione (regola CR2).
+     **/
+    boolean hasConjunctions() {
+        return !this.conjunctions.isEmpty() || this.parent != null && this.parent.hasConjunctions();
+    }
+
+    /**
+     * @return true se esiste almeno un assioma C ⊑ ∃r.E (regola CR3).
+     **/
+    boolean hasExistentialSuperClasses() {
+        return !this.atomicToExistentials.isEmpty() || this.parent != null && this.parent.hasExistentialSuperClasses();
+    }
+
+    /**
+     * @return true se esiste almeno un assioma con lato destro Nothing o ∃r.Nothing, l'unico modo in cui Nothing può
+     * entrare in un insieme S (regola CR5).
+     **/
+    boolean derivesBottom() {
+        return this.bottomAxioms > 0 || this.parent != null && this.parent.derivesBottom();
+    }
+
+    /**
+     * @return i lati sinistri atomici indicizzati direttamente in questo indice (regole CR1 e CR3), senza quelli del padre.
+     **/
+    int[] atomicSubClasses() {
+        IntSet result = IntSet.of(this.atomicToSuperClasses.keys());
+        for (int key : this.atomicToExistentials.keys()) {
+            result.add(key);
+        }
+        return result.toArray();
+    }
+
+    /**
+     * @return i congiunti dei lati sinistri intersezione indicizzati direttamente in questo indice (regola CR2), senza quelli del padre.
+     **/
+    int[] conjuncts() {
+        return this.conjunctions.keys();
+    }
+
+    /**
+     * @return i ruoli dei lati sinistri esistenziali indicizzati direttamente in questo indice (regola CR4), senza quelli del padre.
+     **/
+    int[] existentialRoles() {
+        return this.existentials.keys();
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        if (first.length == 0) {
+            return second;
+        }
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static IntMap<int[]> merge(IntMap<int[]> first, IntMap<int[]> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return second;
+        }
+        IntMap<int[]> result = new IntMap<>();
+        first.forEach(result::put);
+        second.forEach((key, values) -> result.put(key, concat(result.getOrDefault(key, NONE), values)));
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.ClassExpressionType;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLObjectPropertyExpression;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Dizionario che assegna identificativi interi densi ai concetti atomici (classi e singleton) e ai ruoli
+ * che compaiono negli assiomi normalizzati. La saturazione lavora solo sugli identificativi, che vengono
+ * tradotti in oggetti OWLAPI solo ai confini dell'API.
+ * <p>
+ * Thing e Nothing hanno sempre gli identificativi THING e NOTHING. Un dizionario può estendere un dizionario padre
+ * (ad esempio per i concetti fittizi di una query): i nuovi identificativi proseguono da quelli del padre,
+ * che da quel momento non deve più ricevere nuovi concetti o ruoli.
+ **/
+final class ConceptDictionary {
+
+    static final int THING = 0;
+    static final int NOTHING = 1;
+
+    private final ConceptDictionary parent;
+    private final int conceptOffset;
+    private final int roleOffset;
+    private final Map<OWLClassExpression, Integer> conceptIds = new HashMap<>();
+    private final List<OWLClassExpression> concepts = new ArrayList<>();
+    private final BitSet nominals = new BitSet();
+    private final Map<OWLObjectPropertyExpression, Integer> roleIds = new HashMap<>();
+    private final List<OWLObjectPropertyExpression> roles = new ArrayList<>();
+
+    ConceptDictionary(OWLDataFactory df) {
+        this.parent = null;
+        this.conceptOffset = 0;
+        this.roleOffset = 0;
+        concept(df.getOWLThing());
+        concept(df.getOWLNothing());
+    }
+
+    ConceptDictionary(ConceptDictionary parent) {
+        this.parent = parent;
+        this.conceptOffset = parent.conceptCount();
+        this.roleOffset = parent.roleCount();
+    }
+
+    /**
+     * @return l'identificativo di expression, assegnandone uno nuovo se non è ancora presente.
+     **/
+    int concept(OWLClassExpression expression) {
+        int id = conceptIdOf(expression);
+        if (id < 0) {
+            id = this.conceptOffset + this.concepts.size();
+            this.conceptIds.put(expression, id);
+            this.concepts.add(expression);
+            if (expression.getClassExpressionType() == ClassExpressionType.OBJECT_ONE_OF) {
+                this.nominals.set(id - this.conceptOffset);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * @return l'identificativo di expression, oppure -1 se non è presente.
+     **/
+    int conceptIdOf(OWLClassExpression expression) {
+        if (this.parent != null) {
+            int id = this.parent.conceptIdOf(expression);
+            if (id >= 0) {
+                return id;
+            }
+        }
+        Integer id = this.conceptIds.get(expression);
+        return id == null ? -1 : id;
+    }
+
+    OWLClassExpression concept(int id) {
+        return id < this.conceptOffset ? this.parent.concept(id) : this.concepts.get(id - this.conceptOffset);
+    }
+
+    boolean isNominal(int id) {
+        return id < this.conceptOffset ? this.parent.isNominal(id) : this.nominals.get(id - this.conceptOffset);
+    }
+
+    /**
+     * @return true se il dizionario, o il padre, contiene almeno un singleton.
+     **/
+    boolean hasNominals() {
+        return !this.nominals.isEmpty() || this.parent != null && this.parent.hasNominals();
+    }
+
+    /**
+     * Esegue action sull'identificativo di ogni singleton del dizionario, compresi quelli del padre.
+     **/
+    void forEachNominal(IntConsumer action) {
+        if (this.parent != null) {
+            this.parent.forEachNominal(action);
+        }
+        for (int i = this.nominals.nextSetBit(0); i >= 0; i = this.nominals.nextSetBit(i + 1)) {
+            action.accept(this.conceptOffset + i);
+        }
+    }
+
+    int conceptCount() {
+        return this.conceptOffset + this.concepts.size();
+    }
+
+    /**
+     * @return l'identificativo di role, assegnandone uno nuovo se non è ancora presente.
+     **/
+    int role(OWLObjectPropertyExpression role) {
+        int id = roleIdOf(role);
+        if (id < 0) {
+            id = this.roleOffset + this.roles.size();
+            this.roleIds.put(role, id);
+            this.roles.add(role);
+        }
+        return id;
+    }
+
+    int roleIdOf(OWLObjectPropertyExpression role) {
+        if (this.parent != null) {
+            int id = this.parent.roleIdOf(role);
+            if (id >= 0) {
+                return id;
+            }
+        }
+        Integer id = this.roleIds.get(role);
+        return id == null ? -1 : id;
+    }
+
+    OWLObjectPropertyExpression role(int id) {
+        return id < this.roleOffset ? this.parent.role(id) : this.roles.get(id - this.roleOffset);
+    }
+
+    int roleCount() {
+        return this.roleOffset + this.roles.size();
+    }
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Copia compatta e di sola lettura di un RoleEdges, in formato CSR come FrozenSets: gli archi di ogni concetto sono
+ * ordinati per ruolo e per concetto collegato e concatenati nelle array roles e others, e gli archi di key occupano
+ * roles[offsets[key]..offsets[key + 1]) e others nelle stesse posizioni. Gli archi di (C, r) sono quindi un intervallo
+ * contiguo trovato con una ricerca binaria, e vengono letti direttamente tramite le posizioni senza creare oggetti.
+ **/
+final class FrozenEdges {
+
+    private final int[] offsets;
+    private final int[] roles;
+    private final int[] others;
+
+    FrozenEdges(RoleEdges edges) {
+        int limit = 0;
+        for (int key : edges.keys()) {
+            limit = Math.max(limit, key + 1);
+        }
+        int count = Math.toIntExact(edges.size());
+        this.offsets = new int[limit + 1];
+        this.roles = new int[count];
+        this.others = new int[count];
+        int next = 0;
+        for (int key = 0; key < limit; key++) {
+            this.offsets[key] = next;
+            IntMap<IntSet> byRole = edges.edgesOf(key);
+            if (byRole == null) {
+                continue;
+            }
+            int[] relations = byRole.keys();
+            Arrays.sort(relations);
+            for (int relation : relations) {
+                int[] row = byRole.get(relation).toArray();
+                Arrays.sort(row);
+                Arrays.fill(this.roles, next, next + row.length, relation);
+                System.arraycopy(row, 0, this.others, next, row.length);
+                next += row.length;
+            }
+        }
+        this.offsets[limit] = next;
+    }
+
+    boolean contains(int key, int relation, int other) {
+        if (key < 0 || key >= this.offsets.length - 1) {
+            return false;
+        }
+        int to = this.offsets[key + 1];
+        int from = lowerBound(this.roles, this.offsets[key], to, relation);
+        if (from == to || this.roles[from] != relation) {
+            return false;
+        }
+        return Arrays.binarySearch(this.others, from, lowerBound(this.roles, from, to, relation + 1), other) >= 0;
+    }
+
+    /**
+     * Esegue action su ogni arco di key, come coppia (ruolo, concetto collegato), in ordine di ruolo e di concetto.
+     **/
+    void forEach(int key, RoleEdges.Edge action) {
+        if (key >= 0 && key < this.offsets.length - 1) {
+            for (int i = this.offsets[key]; i < this.offsets[key + 1]; i++) {
+                action.accept(this.roles[i], this.others[i]);
+            }
+        }
+    }
+
+    /**
+     * @return il numero di archi.
+     **/
+    long size() {
+        return this.roles.length;
+    }
+
+    /**
+     * @return una copia modificabile degli archi.
+     **/
+    RoleEdges thaw() {
+        RoleEdges edges = new RoleEdges();
+        for (int key = 0; key < this.offsets.length - 1; key++) {
+            for (int i = this.offsets[key]; i < this.offsets[key + 1]; i++) {
+                edges.add(key, this.roles[i], this.others[i]);
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Scrive gli archi nello stesso formato di RoleEdges.write(), così che possano essere letti con RoleEdges.read().
+     **/
+    void write(DataOutputStream out) throws IOException {
+        int keys = 0;
+        for (int key = 0; key < this.offsets.length - 1; key++) {
+            if (this.offsets[key] < this.offsets[key + 1]) {
+                keys++;
+            }
+        }
+        out.writeInt(keys);
+        for (int key = 0; key < this.offsets.length - 1; key++) {
+            int from = this.offsets[key];
+            int to = this.offsets[key + 1];
+            if (from == to) {
+                continue;
+            }
+            out.writeInt(key);
+            int relations = 0;
+            for (int i = from; i < to; i = lowerBound(this.roles, i, to, this.roles[i] + 1)) {
+                relations++;
+            }
+            out.writeInt(relations);
+            for (int i = from; i < to; ) {
+                int end = lowerBound(this.roles, i, to, this.roles[i] + 1);
+                out.writeInt(this.roles[i]);
+                out.writeInt(end - i);
+                for (int j = i; j < end; j++) {
+                    out.writeInt(this.others[j]);
+                }
+                i = end;
+            }
+        }
+    }
+
+    /**
+     * @return la prima posizione in [from, to) di sorted con un valore non minore di value, oppure to.
+     **/
+    private static int lowerBound(int[] sorted, int from, int to, int value) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (sorted[middle] < value) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+}
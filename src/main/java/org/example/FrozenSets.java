@@ -0,0 +1,129 @@
+package org.example;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Copia compatta e di sola lettura di una IntMap di IntSet, in formato CSR (compressed sparse row): gli insiemi di tutte
+ * le chiavi sono ordinati e concatenati in un'unica array values, e l'insieme di key occupa values[offsets[key]..offsets[key + 1]).
+ * Rispetto alle tabelle hash di IntSet non servono un oggetto e le posizioni libere per ogni insieme, un insieme viene
+ * letto da memoria contigua e l'appartenenza è verificata con una ricerca binaria nella sua riga.
+ * Le chiavi sono identificativi densi di concetti, per cui offsets ha una posizione per ogni identificativo fino al massimo.
+ * Le righe sono lette direttamente tramite le posizioni in values, senza creare un oggetto per ogni insieme letto.
+ **/
+final class FrozenSets {
+
+    private final BitSet keys = new BitSet();
+    private final int[] offsets;
+    private final int[] values;
+    private final int size;
+
+    FrozenSets(IntMap<IntSet> sets) {
+        int limit = 0;
+        long count = 0;
+        for (int key : sets.keys()) {
+            this.keys.set(key);
+            limit = Math.max(limit, key + 1);
+            count += sets.get(key).size();
+        }
+        this.offsets = new int[limit + 1];
+        this.values = new int[Math.toIntExact(count)];
+        this.size = sets.size();
+        int next = 0;
+        for (int key = 0; key < limit; key++) {
+            this.offsets[key] = next;
+            if (this.keys.get(key)) {
+                int[] row = sets.get(key).toArray();
+                Arrays.sort(row);
+                System.arraycopy(row, 0, this.values, next, row.length);
+                next += row.length;
+            }
+        }
+        this.offsets[limit] = next;
+    }
+
+    boolean containsKey(int key) {
+        return key >= 0 && this.keys.get(key);
+    }
+
+    /**
+     * @return true se value appartiene all'insieme di key; false anche se key non ha un insieme.
+     **/
+    boolean contains(int key, int value) {
+        return containsKey(key) && Arrays.binarySearch(this.values, this.offsets[key], this.offsets[key + 1], value) >= 0;
+    }
+
+    /**
+     * @return il numero di elementi dell'insieme di key, 0 se key non ha un insieme.
+     **/
+    int size(int key) {
+        return containsKey(key) ? this.offsets[key + 1] - this.offsets[key] : 0;
+    }
+
+    /**
+     * Esegue action su ogni elemento dell'insieme di key, in ordine crescente.
+     **/
+    void forEach(int key, IntConsumer action) {
+        if (containsKey(key)) {
+            for (int i = this.offsets[key]; i < this.offsets[key + 1]; i++) {
+                action.accept(this.values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return gli elementi dell'insieme di key in una nuova array ordinata, vuota se key non ha un insieme.
+     **/
+    int[] toArray(int key) {
+        return containsKey(key) ? Arrays.copyOfRange(this.values, this.offsets[key], this.offsets[key + 1]) : new int[0];
+    }
+
+    /**
+     * @return una copia modificabile dell'insieme di key, oppure null se key non ha un insieme.
+     **/
+    IntSet copyOf(int key) {
+        return containsKey(key) ? new IntSet(this.values, this.offsets[key], this.offsets[key + 1]) : null;
+    }
+
+    /**
+     * @return il numero di chiavi.
+     **/
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @return il numero complessivo di elementi degli insiemi.
+     **/
+    int valueCount() {
+        return this.values.length;
+    }
+
+    /**
+     * @return una copia modificabile degli insiemi, con un IntSet indipendente per ogni chiave.
+     **/
+    IntMap<IntSet> thaw() {
+        IntMap<IntSet> sets = new IntMap<>();
+        for (int key = this.keys.nextSetBit(0); key >= 0; key = this.keys.nextSetBit(key + 1)) {
+            sets.put(key, copyOf(key));
+        }
+        return sets;
+    }
+
+    /**
+     * Scrive gli insiemi nello stesso formato di Saturation.writeSets(), così che possano essere letti con Saturation.readSets().
+     **/
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(this.size);
+        for (int key = this.keys.nextSetBit(0); key >= 0; key = this.keys.nextSetBit(key + 1)) {
+            out.writeInt(key);
+            out.writeInt(this.offsets[key + 1] - this.offsets[key]);
+            for (int i = this.offsets[key]; i < this.offsets[key + 1]; i++) {
+                out.writeInt(this.values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Mappa da interi non negativi a oggetti a indirizzamento aperto (scansione lineare), usata per indicizzare
+ * per identificativo di concetto o di ruolo senza creare un Integer per ogni chiave.
+ **/
+final class IntMap<V> {
+
+    private static final int FREE = -1;
+
+    /**
+     * Azione eseguita da forEach() su ogni coppia (chiave, valore).
+     **/
+    interface Entry<V> {
+        void accept(int key, V value);
+    }
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    IntMap() {
+        this.keys = new int[4];
+        this.values = new Object[4];
+        Arrays.fill(this.keys, FREE);
+    }
+
+    private static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    private int indexOf(int key) {
+        int mask = this.keys.length - 1;
+        int i = slot(key, mask);
+        while (this.keys[i] != FREE) {
+            if (this.keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) this.values[i];
+    }
+
+    V getOrDefault(int key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    void put(int key, V value) {
+        if ((this.size + 1) * 2 > this.keys.length) {
+            grow();
+        }
+        int mask = this.keys.length - 1;
+        int i = slot(key, mask);
+        while (this.keys[i] != FREE) {
+            if (this.keys[i] == key) {
+                this.values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.size++;
+    }
+
+    /**
+     * Rimuove key e il suo valore. Come in IntSet.remove(), le posizioni successive della stessa sequenza di collisioni
+     * vengono spostate indietro.
+     *
+     * @return il valore associato a key, oppure null se key non era presente.
+     **/
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V removed = (V) this.values[i];
+        int mask = this.keys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (this.keys[j] == FREE) {
+                break;
+            }
+            int k = slot(this.keys[j], mask);
+            if (i <= j ? i < k && k <= j : i < k || k <= j) {
+                continue;
+            }
+            this.keys[i] = this.keys[j];
+            this.values[i] = this.values[j];
+            i = j;
+        }
+        this.keys[i] = FREE;
+        this.values[i] = null;
+        this.size--;
+        return removed;
+    }
+
+    V computeIfAbsent(int key, IntFunction<V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Esegue action su ogni coppia (chiave, valore). La mappa non deve ricevere nuove chiavi durante l'iterazione.
+     **/
+    @SuppressWarnings("unchecked")
+    void forEach(Entry<V> action) {
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != FREE) {
+                action.accept(this.keys[i], (V) this.values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return le chiavi in una nuova array (ordine non specificato).
+     **/
+    int[] keys() {
+        int[] result = new int[this.size];
+        int j = 0;
+        for (int key : this.keys) {
+            if (key != FREE) {
+                result[j++] = key;
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        int[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.keys = new int[oldKeys.length * 2];
+        this.values = new Object[oldKeys.length * 2];
+        Arrays.fill(this.keys, FREE);
+        this.size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example;
+
+/**
+ * Coda FIFO di interi su buffer circolare, usata come coda di lavoro della saturazione:
+ * ogni derivazione occupa un numero fisso di posizioni consecutive (ad esempio C e D per D ∈ S(C)).
+ **/
+final class IntQueue {
+
+    private int[] buffer = new int[16];
+    private int head;
+    private int size;
+
+    void add(int value) {
+        if (this.size == this.buffer.length) {
+            int[] grown = new int[this.buffer.length * 2];
+            for (int i = 0; i < this.size; i++) {
+                grown[i] = this.buffer[(this.head + i) & (this.buffer.length - 1)];
+            }
+            this.buffer = grown;
+            this.head = 0;
+        }
+        this.buffer[(this.head + this.size) & (this.buffer.length - 1)] = value;
+        this.size++;
+    }
+
+    int poll() {
+        int value = this.buffer[this.head];
+        this.head = (this.head + 1) & (this.buffer.length - 1);
+        this.size--;
+        return value;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+}
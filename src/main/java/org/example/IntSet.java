@@ -0,0 +1,167 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Insieme di interi non negativi a indirizzamento aperto (scansione lineare), usato per gli insiemi S(C) e per gli
+ * insiemi di successori e predecessori: evita un oggetto per elemento e il calcolo di hash su espressioni OWL annidate.
+ * La forma congelata di sola lettura degli stessi insiemi è invece FrozenSets.
+ **/
+final class IntSet {
+
+    private static final int FREE = -1;
+
+    private int[] table;
+    private int size;
+
+    IntSet() {
+        this.table = new int[4];
+        Arrays.fill(this.table, FREE);
+    }
+
+    /**
+     * Crea una copia indipendente di other.
+     **/
+    IntSet(IntSet other) {
+        this.table = other.table.clone();
+        this.size = other.size;
+    }
+
+    /**
+     * Crea un insieme con gli elementi values[from..to), con una tabella già abbastanza grande per contenerli.
+     **/
+    IntSet(int[] values, int from, int to) {
+        int capacity = 4;
+        while ((to - from) * 2 > capacity) {
+            capacity *= 2;
+        }
+        this.table = new int[capacity];
+        Arrays.fill(this.table, FREE);
+        for (int i = from; i < to; i++) {
+            add(values[i]);
+        }
+    }
+
+    static IntSet of(int... values) {
+        IntSet set = new IntSet();
+        for (int value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    private static int slot(int value, int mask) {
+        int h = value * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    /**
+     * @return true se value non era già presente.
+     **/
+    boolean add(int value) {
+        if ((this.size + 1) * 2 > this.table.length) {
+            grow();
+        }
+        int mask = this.table.length - 1;
+        int i = slot(value, mask);
+        while (this.table[i] != FREE) {
+            if (this.table[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        this.table[i] = value;
+        this.size++;
+        return true;
+    }
+
+    boolean contains(int value) {
+        int mask = this.table.length - 1;
+        int i = slot(value, mask);
+        while (this.table[i] != FREE) {
+            if (this.table[i] == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true se value era presente. Le posizioni successive della stessa sequenza di collisioni vengono
+     * spostate indietro, così che la ricerca degli altri elementi resti corretta.
+     **/
+    boolean remove(int value) {
+        int mask = this.table.length - 1;
+        int i = slot(value, mask);
+        while (this.table[i] != FREE) {
+            if (this.table[i] == value) {
+                int j = i;
+                while (true) {
+                    j = (j + 1) & mask;
+                    if (this.table[j] == FREE) {
+                        break;
+                    }
+                    int k = slot(this.table[j], mask);
+                    //L'elemento in j resta dov'è se la sua posizione ideale k è ciclicamente in (i, j]
+                    if (i <= j ? i < k && k <= j : i < k || k <= j) {
+                        continue;
+                    }
+                    this.table[i] = this.table[j];
+                    i = j;
+                }
+                this.table[i] = FREE;
+                this.size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Esegue action su ogni elemento. L'insieme non deve essere modificato durante l'iterazione.
+     **/
+    void forEach(IntConsumer action) {
+        for (int value : this.table) {
+            if (value != FREE) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * @return gli elementi in una nuova array (ordine non specificato), utile per iterare mentre l'insieme può essere modificato.
+     **/
+    int[] toArray() {
+        int[] result = new int[this.size];
+        int j = 0;
+        for (int value : this.table) {
+            if (value != FREE) {
+                result[j++] = value;
+            }
+        }
+        return result;
+    }
+
+    private void grow() {
+        int[] old = this.table;
+        this.table = new int[old.length * 2];
+        Arrays.fill(this.table, FREE);
+        this.size = 0;
+        for (int value : old) {
+            if (value != FREE) {
+                add(value);
+            }
+        }
+    }
+}
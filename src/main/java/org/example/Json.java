@@ -0,0 +1,204 @@
+package org.example;
+
+import java.util.*;
+
+/**
+ * Lettura e scrittura del sottoinsieme di JSON usato da ReasonerServer: stringhe, array e oggetti, senza numeri né
+ * letterali. Un valore letto è una String, una List dei valori o una Map dai nomi dei membri ai valori.
+ **/
+final class Json {
+
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @return il valore contenuto in text.
+     * @throws IllegalArgumentException se text non è un valore del sottoinsieme supportato.
+     **/
+    static Object parse(String text) {
+        Json reader = new Json(text);
+        Object value = reader.value();
+        reader.skipWhitespace();
+        if (reader.position < text.length()) {
+            throw reader.error("fine del documento attesa");
+        }
+        return value;
+    }
+
+    /**
+     * @return s racchiusa tra virgolette, con i caratteri speciali sostituiti dalle sequenze di escape.
+     **/
+    static String quote(String s) {
+        StringBuilder quoted = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * @return l'array JSON delle stringhe di values, nell'ordine di iterazione.
+     **/
+    static String array(Collection<String> values) {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (String value : values) {
+            joiner.add(quote(value));
+        }
+        return joiner.toString();
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (this.position >= this.text.length()) {
+            throw error("valore atteso");
+        }
+        switch (this.text.charAt(this.position)) {
+            case '"':
+                return string();
+            case '[':
+                return list();
+            case '{':
+                return object();
+            default:
+                throw error("stringa, array o oggetto attesi");
+        }
+    }
+
+    private List<Object> list() {
+        List<Object> values = new ArrayList<>();
+        this.position++;
+        skipWhitespace();
+        if (accept(']')) {
+            return values;
+        }
+        do {
+            values.add(value());
+            skipWhitespace();
+        } while (accept(','));
+        expect(']');
+        return values;
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> members = new LinkedHashMap<>();
+        this.position++;
+        skipWhitespace();
+        if (accept('}')) {
+            return members;
+        }
+        do {
+            skipWhitespace();
+            if (this.position >= this.text.length() || this.text.charAt(this.position) != '"') {
+                throw error("nome del membro atteso");
+            }
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            members.put(name, value());
+            skipWhitespace();
+        } while (accept(','));
+        expect('}');
+        return members;
+    }
+
+    private String string() {
+        StringBuilder s = new StringBuilder();
+        this.position++;
+        while (this.position < this.text.length()) {
+            char c = this.text.charAt(this.position++);
+            if (c == '"') {
+                return s.toString();
+            }
+            if (c != '\\') {
+                s.append(c);
+                continue;
+            }
+            if (this.position >= this.text.length()) {
+                break;
+            }
+            char escaped = this.text.charAt(this.position++);
+            switch (escaped) {
+                case 'n':
+                    s.append('\n');
+                    break;
+                case 'r':
+                    s.append('\r');
+                    break;
+                case 't':
+                    s.append('\t');
+                    break;
+                case 'b':
+                    s.append('\b');
+                    break;
+                case 'f':
+                    s.append('\f');
+                    break;
+                case 'u':
+                    if (this.position + 4 > this.text.length()) {
+                        throw error("sequenza \\u incompleta");
+                    }
+                    try {
+                        s.append((char) Integer.parseInt(this.text.substring(this.position, this.position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("sequenza \\u non valida");
+                    }
+                    this.position += 4;
+                    break;
+                default:
+                    s.append(escaped);
+            }
+        }
+        throw error("stringa non terminata");
+    }
+
+    private void skipWhitespace() {
+        while (this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position))) {
+            this.position++;
+        }
+    }
+
+    private boolean accept(char c) {
+        if (this.position < this.text.length() && this.text.charAt(this.position) == c) {
+            this.position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("'" + c + "' atteso");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("JSON non valido alla posizione " + this.position + ": " + message);
+    }
+}
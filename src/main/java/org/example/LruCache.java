@@ -0,0 +1,79 @@
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Cache limitata, usata per le risposte alle query (indicizzate per la forma canonica della query) e per i moduli
+ * (indicizzati per la segnatura delle query). Quando la cache è piena viene scartato il valore usato meno di recente (LRU).
+ * Tutti i metodi sono sincronizzati, dato che la cache è condivisa dalle query eseguite da più thread.
+ **/
+final class LruCache<K, V> {
+
+    private final int capacity;
+    private final Map<K, V> values;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity il numero massimo di valori conservati; con 0 la cache è disattivata.
+     **/
+    LruCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("La dimensione della cache non può essere negativa");
+        }
+        this.capacity = capacity;
+        this.values = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return il valore conservato per key, oppure null se non è presente.
+     **/
+    synchronized V get(K key) {
+        V value = this.values.get(key);
+        if (value == null) {
+            this.misses++;
+        } else {
+            this.hits++;
+        }
+        return value;
+    }
+
+    synchronized void put(K key, V value) {
+        if (this.capacity > 0) {
+            this.values.put(key, value);
+        }
+    }
+
+    /**
+     * Scarta tutti i valori, ad esempio dopo una modifica dell'ontologia. I contatori non vengono azzerati.
+     **/
+    synchronized void clear() {
+        this.values.clear();
+    }
+
+    synchronized int size() {
+        return this.values.size();
+    }
+
+    /**
+     * Esegue action su ogni valore conservato, dal meno usato di recente, senza modificarne l'ordine.
+     **/
+    synchronized void forEachValue(Consumer<? super V> action) {
+        this.values.values().forEach(action);
+    }
+
+    synchronized long hits() {
+        return this.hits;
+    }
+
+    synchronized long misses() {
+        return this.misses;
+    }
+}
@@ -4,10 +4,31 @@ import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 
 public class Main {
-    public static void main(String[] args) throws OWLOntologyCreationException {
-        OWLOntologyManager man = OWLManager.createOWLOntologyManager();
-        OWLOntology o = man.loadOntologyFromOntologyDocument(new File("ontology/FOOTBALL_ONTOLOGY.rdf"));
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final String DEFAULT_ONTOLOGY = "ontology/FOOTBALL_ONTOLOGY.rdf";
+    private static final String DEFAULT_SNAPSHOT = "ontology/FOOTBALL_ONTOLOGY.snapshot";
+
+    public static void main(String[] args) throws OWLOntologyCreationException, IOException {
+        if (args.length > 0 && args[0].equals("serve")) {
+            //Il server risponde solo sull'interfaccia di loopback, sulla porta indicata o su quella predefinita
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+            File ontologyFile = new File(args.length > 2 ? args[2] : DEFAULT_ONTOLOGY);
+            OWLOntology o = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(ontologyFile);
+            MyReasoner reasoner = new MyReasoner(o, true);
+            reasoner.freeze(); //Il server risponde solo a query: la chiusura viene congelata
+            ReasonerServer server = new ReasonerServer(reasoner, o, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            System.out.println("Reasoner in ascolto su http://" + server.address().getHostString() + ":" + server.address().getPort());
+            return;
+        }
+        //Dal secondo avvio il reasoner viene ricostruito dallo snapshot, finché l'ontologia non cambia
+        File ontologyFile = new File(args.length > 0 ? args[0] : DEFAULT_ONTOLOGY);
+        File snapshotFile = new File(args.length > 1 ? args[1] : DEFAULT_SNAPSHOT);
+        MyReasoner.open(ontologyFile, snapshotFile).dispose();
     }
-}
\ No newline at end of file
+}
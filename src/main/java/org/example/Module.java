@@ -0,0 +1,30 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import java.util.Set;
+
+/**
+ * Un ⊥-modulo della TBox già normalizzato e indicizzato, condiviso dalle query di un reasoner lazy con la stessa segnatura.
+ * Le classi temporanee, il dizionario e l'indice sono propri del modulo e, una volta costruiti, non vengono più modificati:
+ * ogni query li estende con una tabella, un dizionario e un indice figli, come quelli della TBox di un reasoner eager.
+ **/
+final class Module {
+
+    final TempClassTable tempClasses;
+    final Set<OWLSubClassOfAxiom> normalizedAxioms;
+    final ConceptDictionary dictionary;
+    final AxiomIndex axiomIndex;
+
+    /**
+     * @param tempClasses le classi temporanee create normalizzando gli assiomi del modulo.
+     * @param normalizedAxioms gli assiomi normalizzati del modulo.
+     **/
+    Module(OWLDataFactory df, TempClassTable tempClasses, Set<OWLSubClassOfAxiom> normalizedAxioms) {
+        this.tempClasses = tempClasses;
+        this.normalizedAxioms = normalizedAxioms;
+        this.dictionary = new ConceptDictionary(df);
+        this.axiomIndex = new AxiomIndex(this.dictionary, normalizedAxioms);
+    }
+}
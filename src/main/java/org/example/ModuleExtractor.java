@@ -0,0 +1,129 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import java.util.*;
+
+/**
+ * Estrazione di moduli basati sulla località sintattica ⊥ (⊥-moduli) dagli assiomi della TBox.
+ * <p>
+ * Un assioma C ⊑ D è ⊥-locale rispetto ad una segnatura Σ se C è ⊥-equivalente, cioè vuoto quando tutti i simboli
+ * fuori da Σ sono interpretati come vuoti, oppure se D è Thing. In EL++ una classe A o un esistenziale ∃r.C sono
+ * ⊥-equivalenti se A o r non appartengono a Σ, un'intersezione se lo è uno dei suoi operandi, mentre Thing e i singleton
+ * non lo sono mai: C non è ⊥-equivalente esattamente quando tutte le sue classi diverse da Thing e tutti i suoi ruoli
+ * appartengono a Σ. Il ⊥-modulo per Σ è il più piccolo insieme di assiomi che contiene tutti gli assiomi non locali
+ * rispetto a Σ unito alla segnatura del modulo stesso, e conserva tutte le sussunzioni tra concetti costruiti su Σ.
+ * <p>
+ * Per ogni assioma è conservato il numero di simboli del lato sinistro, e per ogni simbolo gli assiomi nel cui lato
+ * sinistro compare: l'estrazione decrementa il contatore di un assioma per ogni suo simbolo che entra in Σ, e l'assioma
+ * entra nel modulo quando il contatore arriva a zero, aggiungendo a Σ la propria segnatura. Il costo è quindi
+ * proporzionale al modulo estratto e non alla TBox.
+ * <p>
+ * add() e remove() devono essere invocati in mutua esclusione con extract(), che può invece essere eseguito da più
+ * thread contemporaneamente.
+ **/
+final class ModuleExtractor {
+
+    private final Map<OWLSubClassOfAxiom, Integer> symbolCount = new HashMap<>();
+    private final Map<OWLEntity, Set<OWLSubClassOfAxiom>> axiomsBySymbol = new HashMap<>();
+    private final Set<OWLSubClassOfAxiom> nonLocal = new HashSet<>();
+
+    /**
+     * Aggiunge un assioma della TBox. Gli assiomi con Thing a destra sono locali per ogni segnatura e vengono ignorati.
+     **/
+    void add(OWLSubClassOfAxiom axiom) {
+        if (axiom.getSuperClass().isOWLThing() || this.symbolCount.containsKey(axiom)) {
+            return;
+        }
+        Set<OWLEntity> symbols = symbols(axiom.getSubClass());
+        this.symbolCount.put(axiom, symbols.size());
+        if (symbols.isEmpty()) { //Un lato sinistro costruito da Thing e singleton non è mai vuoto
+            this.nonLocal.add(axiom);
+        }
+        for (OWLEntity symbol : symbols) {
+            this.axiomsBySymbol.computeIfAbsent(symbol, s -> new HashSet<>()).add(axiom);
+        }
+    }
+
+    /**
+     * Annulla add(axiom).
+     **/
+    void remove(OWLSubClassOfAxiom axiom) {
+        if (this.symbolCount.remove(axiom) == null) {
+            return;
+        }
+        this.nonLocal.remove(axiom);
+        for (OWLEntity symbol : symbols(axiom.getSubClass())) {
+            Set<OWLSubClassOfAxiom> axioms = this.axiomsBySymbol.get(symbol);
+            axioms.remove(axiom);
+            if (axioms.isEmpty()) {
+                this.axiomsBySymbol.remove(symbol);
+            }
+        }
+    }
+
+    /**
+     * @return tutti gli assiomi aggiunti e non rimossi, esclusi quelli con Thing a destra.
+     **/
+    Set<OWLAxiom> axioms() {
+        return new HashSet<>(this.symbolCount.keySet());
+    }
+
+    /**
+     * @return il ⊥-modulo per signature.
+     **/
+    Set<OWLAxiom> extract(Collection<? extends OWLEntity> signature) {
+        Set<OWLAxiom> module = new HashSet<>(this.nonLocal);
+        Set<OWLEntity> sigma = new HashSet<>();
+        Deque<OWLEntity> queue = new ArrayDeque<>();
+        for (OWLEntity symbol : signature) {
+            enqueue(symbol, sigma, queue);
+        }
+        for (OWLSubClassOfAxiom axiom : this.nonLocal) {
+            for (OWLEntity symbol : axiom.getSignature()) {
+                enqueue(symbol, sigma, queue);
+            }
+        }
+
+        Map<OWLSubClassOfAxiom, Integer> missing = new HashMap<>();
+        while (!queue.isEmpty()) {
+            Set<OWLSubClassOfAxiom> axioms = this.axiomsBySymbol.get(queue.poll());
+            if (axioms == null) {
+                continue;
+            }
+            for (OWLSubClassOfAxiom axiom : axioms) {
+                int left = missing.merge(axiom, this.symbolCount.get(axiom) - 1, (count, one) -> count - 1);
+                if (left == 0) { //Tutti i simboli del lato sinistro sono in Σ: l'assioma non è locale
+                    module.add(axiom);
+                    for (OWLEntity symbol : axiom.getSignature()) {
+                        enqueue(symbol, sigma, queue);
+                    }
+                }
+            }
+        }
+        return module;
+    }
+
+    private static void enqueue(OWLEntity symbol, Set<OWLEntity> sigma, Deque<OWLEntity> queue) {
+        if (sigma.add(symbol)) {
+            queue.add(symbol);
+        }
+    }
+
+    /**
+     * @return le classi diverse da Thing e i ruoli di expression, che devono appartenere a Σ perché expression non sia ⊥-equivalente.
+     **/
+    static Set<OWLEntity> symbols(OWLClassExpression expression) {
+        Set<OWLEntity> symbols = new HashSet<>(expression.getObjectPropertiesInSignature());
+        for (OWLClass c : expression.getClassesInSignature()) {
+            if (!c.isOWLThing()) {
+                symbols.add(c);
+            }
+        }
+        return symbols;
+    }
+}
@@ -1,52 +1,440 @@
 package org.example;
 
-import javafx.util.Pair;
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
-import org.jgrapht.graph.DefaultDirectedGraph;
-import org.jgrapht.graph.DefaultEdge;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.model.parameters.Imports;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class MyReasoner {
 
+    /**
+     * Il numero di risposte conservate dalla cache delle query se non viene indicato nel costruttore.
+     **/
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /**
+     * Il numero di moduli conservati da un reasoner lazy, indicizzati per la segnatura delle query.
+     **/
+    private static final int MODULE_CACHE_SIZE = 64;
+
+    /**
+     * Il numero minimo di assiomi per cui la normalizzazione viene eseguita in parallelo: sotto questa soglia il costo
+     * della ripartizione supera quello della normalizzazione, come per i moduli estratti per le singole query.
+     **/
+    static final int PARALLEL_NORMALIZATION_THRESHOLD = 128;
+
     private final OWLDataFactory df;
-    private int universalTempCount = 0;
-    private Set<OWLSubClassOfAxiom> normalizedAxiomsSet = null;
-    private Map<OWLClassExpression, Set<OWLClassExpression>> S = null;
-    private Map<OWLObjectPropertyExpression, Set<Pair<OWLClassExpression, OWLClassExpression>>> R = null;
+    private final OWLOntology ontology;
+    private final OWLOntologyChangeListener changeListener = this::ontologiesChanged;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TempClassTable tempClasses;
+    private final Set<OWLSubClassOfAxiom> normalizedAxiomsSet;
+    private final Map<OWLAxiom, OWLSubClassOfAxiom> normalizedOf = new ConcurrentHashMap<>();
+    private final Map<OWLSubClassOfAxiom, Integer> references = new ConcurrentHashMap<>();
+    private final ConceptDictionary dictionary;
+    private final AxiomIndex axiomIndex;
+    private final Saturation baseClosure;
+    private final ModuleExtractor extractor;
+    private final int threads;
+    private final ForkJoinPool normalizationPool;
+    private final LruCache<OWLSubClassOfAxiom, Boolean> cache;
+    private final LruCache<Set<OWLEntity>, Module> modules;
+    private final ReasonerStats stats;
+    private volatile Realization realization;
+    private ObjectName mBeanName;
 
     /**
-     * Sono inizializzati: <br>
-     * - normalizedAxiomsSet con gli assiomi relativi alla tassonomia delle classi, escludendo quelli importati da ontologie esterne (Imports.EXCLUDED), <br>
-     * - S e R come HashMap vuote
+     * Gli assiomi di sussunzione della TBox (OWLSubClassOfAxiom), escludendo quelli importati da ontologie esterne (Imports.EXCLUDED),
+     * non vengono normalizzati durante la costruzione ma solo indicizzati per l'estrazione dei moduli.
+     * Per ogni lotto di query viene estratto il ⊥-modulo della TBox per la segnatura delle query, che conserva tutte le
+     * sussunzioni tra i concetti delle query: solo gli assiomi del modulo vengono normalizzati e indicizzati, e la query
+     * satura, insieme ai propri assiomi fittizi, solo i concetti del modulo raggiungibili da #X o dai singleton.
+     * I moduli già normalizzati sono conservati per segnatura e riusati dalle query successive con la stessa segnatura.
+     * Il reasoner resta registrato sul manager di o e si aggiorna ad ogni modifica della TBox, finché non viene chiamato dispose().
      **/
     public MyReasoner(OWLOntology o) {
+        this(o, false);
+    }
+
+    /**
+     * Come MyReasoner(OWLOntology), ma se eager è true l'intera TBox viene normalizzata e saturata una sola volta durante la costruzione.
+     * La chiusura ottenuta resta congelata: ogni query satura solo i propri assiomi fittizi sopra di essa,
+     * a partire da #X e limitandosi ai concetti raggiungibili da #X, così che il costo dipenda dalla query e non dall'ontologia.
+     * <p>
+     * Le query non modificano la chiusura, il dizionario e l'indice: ogni query lavora su una propria
+     * sovrapposizione copy-on-write, con un dizionario figlio per i concetti fittizi e temporanei, quindi una sola istanza
+     * può servire query da più thread contemporaneamente condividendo un'unica chiusura della TBox.
+     * Solo le modifiche dell'ontologia aggiornano la chiusura, in mutua esclusione con le query.
+     *
+     * @param o l'ontologia di cui considerare la TBox.
+     * @param eager true per saturare la TBox durante la costruzione.
+     **/
+    public MyReasoner(OWLOntology o, boolean eager) {
+        this(o, eager, 1);
+    }
+
+    /**
+     * Come MyReasoner(OWLOntology, boolean), ma le saturazioni dell'intera TBox (quella iniziale se eager è true,
+     * altrimenti quella di ogni query) sono eseguite in parallelo su threads thread, ripartendo i concetti tra di essi.
+     * Anche la normalizzazione della TBox e dei moduli con almeno PARALLEL_NORMALIZATION_THRESHOLD assiomi è eseguita
+     * in parallelo su threads thread, leggendo gli assiomi direttamente dall'ontologia, con un pool di thread del
+     * reasoner che viene chiuso da dispose(). Il risultato coincide con quello della saturazione sequenziale.
+     *
+     * @param o l'ontologia di cui considerare la TBox.
+     * @param eager true per saturare la TBox durante la costruzione.
+     * @param threads il numero di thread da usare per la normalizzazione e la saturazione; 1 per quelle sequenziali.
+     **/
+    public MyReasoner(OWLOntology o, boolean eager, int threads) {
+        this(o, eager, threads, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Come MyReasoner(OWLOntology, boolean, int), ma le risposte alle query sono conservate in una cache di al più
+     * cacheSize risposte, indicizzata per la forma canonica della query: quando la cache è piena viene scartata
+     * la risposta usata meno di recente. La cache viene svuotata ad ogni modifica della TBox.
+     *
+     * @param o l'ontologia di cui considerare la TBox.
+     * @param eager true per saturare la TBox durante la costruzione.
+     * @param threads il numero di thread da usare per la saturazione; 1 per la saturazione sequenziale.
+     * @param cacheSize il numero massimo di risposte conservate; 0 per non conservare le risposte.
+     **/
+    public MyReasoner(OWLOntology o, boolean eager, int threads, int cacheSize) {
+        this.threads = threads;
+        this.normalizationPool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.cache = new LruCache<>(cacheSize);
+        this.modules = new LruCache<>(MODULE_CACHE_SIZE);
+        this.stats = new ReasonerStats(this.cache, this.modules);
         OWLOntologyManager man = OWLManager.createOWLOntologyManager();
         this.df = man.getOWLDataFactory();
-        Set<OWLAxiom> subClassOfAxioms = o.getTBoxAxioms(Imports.EXCLUDED);
-        this.normalizedAxiomsSet = normalization(subClassOfAxioms);
-        this.S = new HashMap<>();
-        this.R = new HashMap<>();
+        this.ontology = o;
+        if (eager) {
+            this.extractor = null;
+            this.tempClasses = new TempClassTable(this.df);
+            this.normalizedAxiomsSet = ConcurrentHashMap.newKeySet();
+            long start = System.nanoTime();
+            //Gli assiomi sono normalizzati man mano che vengono letti dall'ontologia, senza copiare prima la TBox
+            forEachAxiom(o.axioms(AxiomType.SUBCLASS_OF, Imports.EXCLUDED), o.getAxiomCount(AxiomType.SUBCLASS_OF, Imports.EXCLUDED),
+                    axiom -> addTBoxAxiom(axiom, added -> {}));
+            this.stats.normalized(System.nanoTime() - start, this.tempClasses.size());
+            this.dictionary = new ConceptDictionary(this.df);
+            this.axiomIndex = new AxiomIndex(this.dictionary, this.normalizedAxiomsSet);
+            this.stats.retains(this.dictionary, this.tempClasses);
+            Saturation closure = new Saturation(this.dictionary, this.normalizedAxiomsSet, this.axiomIndex);
+            start = System.nanoTime();
+            closure.saturate(threads);
+            closure.reportTo(this.stats, System.nanoTime() - start);
+            closure.reportSizesTo(this.stats);
+            this.baseClosure = closure;
+        } else {
+            //Il reasoner lazy normalizza solo i moduli estratti per le query
+            this.extractor = new ModuleExtractor();
+            o.axioms(AxiomType.SUBCLASS_OF, Imports.EXCLUDED).forEach(this.extractor::add);
+            this.tempClasses = null;
+            this.normalizedAxiomsSet = null;
+            this.dictionary = null;
+            this.axiomIndex = null;
+            this.baseClosure = null;
+        }
+        o.getOWLOntologyManager().addOntologyChangeListener(this.changeListener);
+    }
+
+    /**
+     * Crea un reasoner eager a partire dallo snapshot letto, senza caricare, normalizzare e saturare l'ontologia.
+     * Il reasoner non è associato ad alcuna ontologia e quindi non segue le sue modifiche.
+     **/
+    private MyReasoner(OWLDataFactory df, Snapshot snapshot) {
+        this.df = df;
+        this.ontology = null;
+        this.tempClasses = snapshot.tempClasses;
+        this.normalizedAxiomsSet = snapshot.normalizedAxioms;
+        this.dictionary = snapshot.dictionary;
+        this.axiomIndex = snapshot.axiomIndex;
+        this.baseClosure = snapshot.closure;
+        this.extractor = null;
+        this.threads = 1;
+        this.normalizationPool = null;
+        this.cache = new LruCache<>(DEFAULT_CACHE_SIZE);
+        this.modules = new LruCache<>(0);
+        this.stats = new ReasonerStats(this.cache, this.modules);
+        this.stats.retains(this.dictionary, this.tempClasses);
+        this.baseClosure.reportSizesTo(this.stats);
     }
 
-    @SafeVarargs
-    private final <T extends  OWLClassExpression> Set<T> createSet(T... items){
-        return Stream.of(items).collect(Collectors.toSet());
+    /**
+     * Crea un reasoner eager per l'ontologia contenuta in ontologyFile usando lo snapshot snapshotFile.
+     * Se snapshotFile è stato scritto per lo stesso contenuto di ontologyFile (confrontato tramite il suo hash SHA-256)
+     * dalla stessa build del reasoner, il reasoner viene ricostruito dallo snapshot senza caricare, normalizzare e saturare
+     * l'ontologia, e non segue le sue modifiche; altrimenti, anche se lo snapshot è troncato o danneggiato, l'ontologia
+     * viene caricata e saturata come in MyReasoner(OWLOntology, true) e lo snapshot viene scritto per gli avvii successivi.
+     *
+     * @param ontologyFile il documento dell'ontologia.
+     * @param snapshotFile il file dello snapshot, che viene creato o sostituito se non corrisponde a ontologyFile.
+     * @return il reasoner eager per la TBox di ontologyFile.
+     * @throws IOException se non è possibile leggere ontologyFile o leggere o scrivere snapshotFile.
+     * @throws OWLOntologyCreationException se non è possibile caricare l'ontologia.
+     **/
+    public static MyReasoner open(File ontologyFile, File snapshotFile) throws IOException, OWLOntologyCreationException {
+        byte[] key = Snapshot.key(ontologyFile);
+        OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+        Snapshot snapshot = Snapshot.read(snapshotFile, key, man.getOWLDataFactory());
+        if (snapshot != null) {
+            return new MyReasoner(man.getOWLDataFactory(), snapshot);
+        }
+        MyReasoner reasoner = new MyReasoner(man.loadOntologyFromOntologyDocument(ontologyFile), true);
+        reasoner.lock.readLock().lock();
+        try {
+            Snapshot.write(snapshotFile, key, reasoner.dictionary, reasoner.tempClasses, reasoner.normalizedAxiomsSet, reasoner.baseClosure);
+        } finally {
+            reasoner.lock.readLock().unlock();
+        }
+        return reasoner;
     }
 
-    private boolean hasAnyTrue(boolean... items){
-        for(boolean item: items){
-            if(item){
-                return true;
+    /**
+     * Converte la chiusura della TBox di un reasoner eager in una forma compatta di sola lettura, adatta alla fase in cui
+     * il reasoner risponde soltanto a query: gli insiemi S e gli archi di R sono copiati in array di interi in formato CSR,
+     * con le righe ordinate e l'appartenenza verificata con una ricerca binaria, al posto delle tabelle hash.
+     * Le risposte non cambiano. La prima modifica successiva dell'ontologia ripristina la forma modificabile, con un costo
+     * proporzionale all'intera chiusura, e la chiusura resta modificabile per gli aggiornamenti successivi: per congelarla
+     * di nuovo, ad esempio al termine di una serie di modifiche, basta chiamare ancora freeze().
+     * Un reasoner lazy non conserva una chiusura della TBox e non viene modificato.
+     **/
+    public void freeze() {
+        this.lock.writeLock().lock();
+        try {
+            if (this.baseClosure != null) {
+                this.baseClosure.freeze();
+                this.baseClosure.reportSizesTo(this.stats);
             }
+        } finally {
+            this.lock.writeLock().unlock();
         }
-        return false;
+    }
+
+    /**
+     * Interrompe l'aggiornamento del reasoner alle modifiche dell'ontologia: le query successive rispondono rispetto
+     * alla TBox presente al momento della chiamata, normalizzando i moduli in sequenza.
+     **/
+    public void dispose() {
+        if (this.ontology != null) {
+            this.ontology.getOWLOntologyManager().removeOntologyChangeListener(this.changeListener);
+        }
+        if (this.normalizationPool != null) {
+            this.normalizationPool.shutdown();
+        }
+        synchronized (this) {
+            if (this.mBeanName != null) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.mBeanName);
+                } catch (JMException e) {
+                    //Il bean è già stato rimosso dall'MBeanServer
+                }
+                this.mBeanName = null;
+            }
+        }
+    }
+
+    /**
+     * @return le statistiche del reasoner, aggiornate ad ogni query e ad ogni modifica dell'ontologia.
+     **/
+    public ReasonerStats stats() {
+        return this.stats;
+    }
+
+    /**
+     * Registra le statistiche del reasoner nell'MBeanServer della piattaforma con nome
+     * org.example:type=MyReasoner,name=name, fino alla chiamata di dispose().
+     *
+     * @param name il nome che distingue il reasoner dagli altri registrati.
+     * @return il nome con cui è stato registrato il bean.
+     * @throws JMException se il nome non è valido o è già registrato.
+     **/
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+        if (this.mBeanName != null) {
+            throw new IllegalStateException("Statistiche già registrate come " + this.mBeanName);
+        }
+        ObjectName objectName = new ObjectName("org.example:type=MyReasoner,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this.stats, objectName);
+        this.mBeanName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Aggiorna il reasoner dopo una modifica dell'ontologia. Un reasoner lazy aggiorna solo l'indice dell'estrazione dei
+     * moduli e scarta i moduli già estratti. Un reasoner eager non normalizza di nuovo l'intera TBox: <br>
+     * - gli assiomi della TBox aggiunti sono normalizzati e i nuovi assiomi normalizzati sono inseriti nell'indice; <br>
+     * - gli assiomi normalizzati che non corrispondono più ad alcun assioma della TBox sono rimossi dall'indice. <br>
+     * Se la TBox è stata saturata durante la costruzione, la chiusura viene aggiornata con Saturation.removeAxioms()
+     * (over-delete / re-derive) e Saturation.addAxioms(), il cui costo dipende dalla parte della chiusura coinvolta dalla modifica.
+     * Le modifiche sono applicate in mutua esclusione con le query e svuotano la cache delle risposte. Gli assiomi aggiunti
+     * sono verificati prima di modificare il reasoner, così che un assioma non valido non lasci un aggiornamento a metà.
+     **/
+    private void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+        Set<OWLSubClassOfAxiom> added = new HashSet<>();
+        Set<OWLSubClassOfAxiom> removed = new HashSet<>();
+        this.lock.writeLock().lock();
+        try {
+            if (this.extractor != null) {
+                updateModules(changes);
+                return;
+            }
+            long start = System.nanoTime();
+            int tempCount = this.tempClasses.size();
+            for (OWLOntologyChange change : changes) {
+                OWLSubClassOfAxiom axiom = subClassAxiomOf(change);
+                if (axiom != null && change.isAddAxiom()) {
+                    subAndSuperCheckBottom(axiom.getSubClass(), axiom.getSuperClass());
+                }
+            }
+            for (OWLOntologyChange change : changes) {
+                OWLSubClassOfAxiom axiom = subClassAxiomOf(change);
+                if (axiom == null) {
+                    continue;
+                }
+                if (change.isAddAxiom()) {
+                    addTBoxAxiom(axiom, ax -> {
+                        if (!removed.remove(ax)) { //Un assioma rimosso e aggiunto di nuovo resta invariato
+                            added.add(ax);
+                        }
+                    });
+                } else if (change.isRemoveAxiom()) {
+                    OWLSubClassOfAxiom ax = removeTBoxAxiom(axiom);
+                    if (ax != null && !added.remove(ax)) {
+                        removed.add(ax);
+                    }
+                }
+            }
+            if (added.isEmpty() && removed.isEmpty()) {
+                return;
+            }
+            this.stats.normalized(System.nanoTime() - start, this.tempClasses.size() - tempCount);
+            this.cache.clear();
+            this.realization = null;
+            long saturationStart = System.nanoTime();
+            if (!removed.isEmpty()) {
+                for (OWLSubClassOfAxiom ax : removed) {
+                    this.axiomIndex.remove(ax, this.dictionary);
+                }
+                if (this.baseClosure != null) {
+                    this.baseClosure.removeAxioms(removed);
+                }
+            }
+            if (!added.isEmpty()) {
+                for (OWLSubClassOfAxiom ax : added) {
+                    this.axiomIndex.add(ax, this.dictionary);
+                }
+                if (this.baseClosure != null) {
+                    this.baseClosure.addAxioms(added);
+                }
+            }
+            if (this.baseClosure != null) {
+                this.baseClosure.reportTo(this.stats, System.nanoTime() - saturationStart);
+                this.baseClosure.reportSizesTo(this.stats);
+            }
+            this.stats.updated(System.nanoTime() - start);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void updateModules(List<? extends OWLOntologyChange> changes) {
+        long start = System.nanoTime();
+        boolean changed = false;
+        for (OWLOntologyChange change : changes) {
+            OWLSubClassOfAxiom axiom = subClassAxiomOf(change);
+            if (axiom == null) {
+                continue;
+            }
+            if (change.isAddAxiom()) {
+                this.extractor.add(axiom);
+            } else if (change.isRemoveAxiom()) {
+                this.extractor.remove(axiom);
+            }
+            changed = true;
+        }
+        if (changed) {
+            this.cache.clear();
+            this.modules.clear();
+            this.realization = null;
+            this.stats.updated(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return l'assioma di sussunzione aggiunto o rimosso da change, oppure null se change non modifica un
+     * OWLSubClassOfAxiom dell'ontologia del reasoner. Come durante la costruzione, gli altri assiomi della TBox
+     * (equivalenze, disgiunzioni, ...) non sono considerati.
+     **/
+    private OWLSubClassOfAxiom subClassAxiomOf(OWLOntologyChange change) {
+        if (!change.getOntology().equals(this.ontology) || !change.isAxiomChange()
+                || !change.getAxiom().isOfType(AxiomType.SUBCLASS_OF)) {
+            return null;
+        }
+        return (OWLSubClassOfAxiom) change.getAxiom();
+    }
+
+    /**
+     * Normalizza l'assioma della TBox axiom e aggiunge gli assiomi normalizzati ottenuti a normalizedAxiomsSet.
+     * L'assioma normalizzato che corrisponde ad axiom viene contato per ciascun assioma della TBox da cui proviene, così da
+     * poterlo rimuovere quando viene rimosso l'ultimo di essi. Gli assiomi che definiscono le classi temporanee restano
+     * invece sempre presenti, dato che introducono solo un nuovo nome per una sotto-espressione: ricevono un riferimento
+     * permanente, così che un assioma della TBox normalizzato nello stesso assioma non possa rimuoverli.
+     * Più assiomi distinti della TBox possono essere aggiunti contemporaneamente da più thread.
+     *
+     * @param added il destinatario degli assiomi normalizzati che non erano già presenti in normalizedAxiomsSet.
+     **/
+    private void addTBoxAxiom(OWLSubClassOfAxiom axiom, Consumer<OWLSubClassOfAxiom> added) {
+        if (this.normalizedOf.containsKey(axiom)) {
+            return;
+        }
+        //Ogni definizione viene generata una sola volta, quando viene creata la sua classe temporanea
+        OWLSubClassOfAxiom normalized = normalizeAxiom(axiom, this.tempClasses, definition -> reference(definition, added));
+        this.normalizedOf.put(axiom, normalized);
+        reference(normalized, added);
+    }
+
+    /**
+     * Conta un riferimento a normalized e lo aggiunge a normalizedAxiomsSet se non era già presente.
+     **/
+    private void reference(OWLSubClassOfAxiom normalized, Consumer<OWLSubClassOfAxiom> added) {
+        this.references.merge(normalized, 1, Integer::sum);
+        if (this.normalizedAxiomsSet.add(normalized)) {
+            added.accept(normalized);
+        }
+    }
+
+    /**
+     * Annulla addTBoxAxiom(axiom).
+     *
+     * @return l'assioma normalizzato rimosso da normalizedAxiomsSet, oppure null se corrisponde ancora ad altri assiomi
+     * della TBox o alla definizione di una classe temporanea.
+     **/
+    private OWLSubClassOfAxiom removeTBoxAxiom(OWLSubClassOfAxiom axiom) {
+        OWLSubClassOfAxiom normalized = this.normalizedOf.remove(axiom);
+        if (normalized == null || this.references.merge(normalized, -1, Integer::sum) > 0) {
+            return null;
+        }
+        this.references.remove(normalized);
+        this.normalizedAxiomsSet.remove(normalized);
+        return normalized;
     }
 
     private <T extends OWLClassExpression> boolean isSomeValueFrom(T expression){
@@ -73,319 +461,338 @@ public class MyReasoner {
      * @return true se la query è valida rispetto agli assiomi presenti, false altrimenti.
      **/
     public boolean doQuery(final OWLSubClassOfAxiom query) {
-        Set<OWLSubClassOfAxiom> mergedSubAxiomsSet = new HashSet<>();
-
-        Set<OWLAxiom> fictitiousSet = createFictitious(query.getSubClass(), query.getSuperClass());
-        fictitiousSet.stream()
-                .map(ax -> (OWLSubClassOfAxiom) ax)
-                .forEach(cast -> {
-                    OWLClassExpression subClass2 = cast.getSubClass();
-                    OWLClassExpression superClass2 = cast.getSuperClass();
-                    subAndSuperCheckBottom(subClass2, superClass2);
-                });
-
-        mergedSubAxiomsSet.addAll(this.normalizedAxiomsSet);
-        mergedSubAxiomsSet.addAll(normalization(fictitiousSet));
-        initializeMapping(mergedSubAxiomsSet);
-        applyingCompletionRules(mergedSubAxiomsSet);
-
-        return this.S.get(this.df.getOWLClass("#X"))
-                .contains(this.df.getOWLClass("#Y"));
+        return doQueries(Collections.singletonList(query)).get(0);
     }
 
     /**
-     * Crea concetti finti (Fictitious) utili a dimostrare che subClass è sottoclasse di superClass
-     * @return due assiomi: uno dimostra che x è sottoclasse di subClass, l'altro che y è superclasse di y
+     * Verifica un insieme di query OWLSubClassOfAxiom con una sola saturazione.
+     * Ogni query riceve una propria coppia di concetti fittizi #Xi, #Yi: gli assiomi fittizi di tutte le query sono
+     * normalizzati insieme e saturati una sola volta, poi per ciascuna query si verifica che #Yi appartenga a S(#Xi).
+     * Dato che #Xi e #Yi non compaiono altrove, gli assiomi fittizi di una query non cambiano la risposta delle altre.
+     * Il metodo non modifica lo stato condiviso del reasoner e può essere invocato da più thread contemporaneamente;
+     * le modifiche dell'ontologia attendono il termine delle query in corso.
+     *
+     * @param queries le query da verificare. Ciascuna deve specificare la sotto-classe e la super-classe.
+     * @return per ogni query, nello stesso ordine, true se è valida rispetto agli assiomi presenti, false altrimenti.
+     * @throws IllegalArgumentException se una delle query contiene bottom in una posizione non consentita.
      **/
-    private Set<OWLAxiom> createFictitious(final OWLClassExpression subClass, final OWLClassExpression superClass) {
-        OWLClass x = this.df.getOWLClass(IRI.create("#X"));
-        OWLClass y = this.df.getOWLClass(IRI.create("#Y"));
-
-        return Stream.of(
-                this.df.getOWLSubClassOfAxiom(x, subClass),
-                this.df.getOWLSubClassOfAxiom(superClass, y)
-        ).collect(Collectors.toSet());
+    public List<Boolean> doQueries(final Collection<OWLSubClassOfAxiom> queries) {
+        List<Boolean> results = new ArrayList<>(queries.size());
+        for (QueryAnswer answer : answerQueries(queries)) {
+            results.add(answer.isEntailed());
+        }
+        return results;
     }
 
-
     /**
-     * Applica a entrambe le classi di ciascun OWLSubClassOfAxiom dell'input la funzione initializeSingleMapping()
-     * per memorizzare in this.S e this.R i concetti e relazioni associati.
-     * Non apporta nessuna modifica sull'input
+     * Come doQuery(), ma riporta anche la provenienza della risposta.
      **/
-    private void initializeMapping(final Set<OWLSubClassOfAxiom> normalizedAxSet) {
-        for (OWLSubClassOfAxiom ax : normalizedAxSet) {
-            OWLClassExpression subClass = ax.getSubClass();
-            OWLClassExpression superClass = ax.getSuperClass();
-            initializeSingleMapping(subClass);
-            initializeSingleMapping(superClass);
-        }
+    public QueryAnswer answerQuery(final OWLSubClassOfAxiom query) {
+        return answerQueries(Collections.singletonList(query)).get(0);
     }
 
     /**
-     * Inizializza la mappatura dei concetti (S) e delle relazioni (R) per una singola espressione di classe OWL.
-     * Se l'espressione è una classe OWL o un è un singleton, viene aggiunta al setS insieme alla classe di massimo livello OWLThing e viene inserita nella mappatura S.
-     * Se l'espressione è un'intersezione di oggetti, le due classi che compongono l'intersezione vengono aggiunte al setS insieme alla classe di massimo livello OWLThing e ciascuna viene inserita nella mappatura S.
-     * Se l'espressione è un'esistenza su valori di oggetto, viene creata un'associazione tra la proprietà e un insieme di coppie di espressioni di classe e viene aggiunta al setS la classe o il singleton dell'esistenziale, insieme alla classe di massimo livello OWLThing, quindi viene inserita nella mappatura S.
+     * Come doQueries(), ma riporta anche la provenienza di ciascuna risposta. La saturazione delle query non in cache
+     * osserva, per ogni query, le derivazioni di #Yi e di Nothing in S(#Xi) e si interrompe appena tutte le query del
+     * lotto sono risultate valide: solo un lotto con almeno una risposta negativa viene saturato fino al punto fisso.
+     * Un #Xi insoddisfacibile, con Nothing ∈ S(#Xi), è sottoclasse di qualsiasi classe e la sua query è quindi valida.
+     * <p>
+     * Lo stato di un lotto (i concetti fittizi, le classi temporanee nuove, il dizionario, l'indice e la saturazione figli)
+     * appartiene solo al lotto e viene rilasciato al suo termine; i nomi #Xi, #Yi e #TEMPn sono riusati dai lotti successivi.
+     * La memoria occupata tra una query e l'altra dipende quindi solo dalla TBox e dalla capacità delle cache.
      *
-     * @param expression l'espressione di classe OWL da inizializzare.
+     * @param queries le query da verificare. Ciascuna deve specificare la sotto-classe e la super-classe.
+     * @return per ogni query, nello stesso ordine, la risposta e la sua provenienza.
+     * @throws IllegalArgumentException se una delle query contiene bottom in una posizione non consentita.
      **/
-    private void initializeSingleMapping(final OWLClassExpression expression) {
-        switch (expression.getClassExpressionType()) {
-            case OWL_CLASS:
-            case OBJECT_ONE_OF:
-                S.put(expression, createSet(expression, df.getOWLThing()));
-                break;
-            case OBJECT_INTERSECTION_OF:
-                OWLObjectIntersectionOf intersectionOf = (OWLObjectIntersectionOf) expression;
-                ArrayList<OWLClassExpression> twoClasses = new ArrayList<>(intersectionOf.getOperandsAsList());
-                S.put(twoClasses.get(0), createSet(twoClasses.get(0), this.df.getOWLThing()));
-                S.put(twoClasses.get(1), createSet(twoClasses.get(1), this.df.getOWLThing()));
-                break;
-            case OBJECT_SOME_VALUES_FROM:
-                OWLObjectSomeValuesFrom cast = (OWLObjectSomeValuesFrom) expression;
-                R.put(cast.getProperty(), new HashSet<>());
-                // Inserisco nella mappa S la classe (o singleton) dell'esistenziale e il setS creato per essa
-                S.put(cast.getFiller(), createSet(cast.getFiller(), this.df.getOWLThing()));
-                break;
+    public List<QueryAnswer> answerQueries(final Collection<OWLSubClassOfAxiom> queries) {
+        long start = System.nanoTime();
+        List<OWLSubClassOfAxiom> keys = new ArrayList<>(queries.size());
+        for (OWLSubClassOfAxiom query : queries) {
+            keys.add(cacheKey(query));
+        }
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        //La cache viene letta e aggiornata sotto il lock, così che una modifica dell'ontologia non possa
+        //svuotarla mentre una query calcolata sulla TBox precedente vi sta inserendo la propria risposta
+        this.lock.readLock().lock();
+        try {
+            QueryAnswer[] results = new QueryAnswer[keys.size()];
+            Map<OWLSubClassOfAxiom, Integer> pending = new LinkedHashMap<>();
+            List<OWLClass> subClasses = new ArrayList<>();
+            List<OWLClass> superClasses = new ArrayList<>();
+            Set<OWLAxiom> fictitiousSet = new HashSet<>();
+            Set<OWLEntity> signature = new HashSet<>();
+
+            for (int i = 0; i < keys.size(); i++) {
+                OWLSubClassOfAxiom key = keys.get(i);
+                if (pending.containsKey(key)) {
+                    continue;
+                }
+                Boolean cached = this.cache.get(key);
+                if (cached != null) {
+                    results[i] = new QueryAnswer(cached, QueryAnswer.Source.CACHE);
+                    continue;
+                }
+                OWLClass x = this.df.getOWLClass(IRI.create("#X" + subClasses.size()));
+                OWLClass y = this.df.getOWLClass(IRI.create("#Y" + superClasses.size()));
+                pending.put(key, subClasses.size());
+                subClasses.add(x);
+                superClasses.add(y);
+                signature.addAll(ModuleExtractor.symbols(key.getSubClass()));
+                signature.addAll(ModuleExtractor.symbols(key.getSuperClass()));
+                checkQuery(key);
+                fictitiousSet.addAll(createFictitious(key.getSubClass(), key.getSuperClass(), x, y));
+            }
+
+            if (!pending.isEmpty()) {
+                List<QueryAnswer> answers = answer(fictitiousSet, subClasses, superClasses, signature);
+                pending.forEach((key, index) -> this.cache.put(key, answers.get(index).isEntailed()));
+                for (int i = 0; i < keys.size(); i++) {
+                    if (results[i] == null) {
+                        results[i] = answers.get(pending.get(keys.get(i)));
+                    }
+                }
+            }
+            this.stats.answered(results.length, System.nanoTime() - start);
+            return Arrays.asList(results);
+        } finally {
+            this.lock.readLock().unlock();
         }
     }
 
     /**
-     * Applica le regole di completamento su un insieme di assiomi di sottoclasse OWL per derivare implicitamente ulteriori assiomi deducibili.
-     * Il metodo esegue iterativamente le regole di completamento finché nuovi assiomi possono essere dedotti.
-     * Le regole di completamento applicate includono CR1, CR2, CR3 per le espressioni di classe e CR4, CR5, CR6 per le proprietà di oggetti.
+     * Verifica che query possa essere passata a doQueries(), senza risponderle: bottom non può comparire nella
+     * super-classe, né all'interno di una sotto-classe complessa.
      *
-     * @param mergedSubClassAxioms l'insieme di assiomi di sottoclasse OWL su cui applicare le regole di completamento.
+     * @throws IllegalArgumentException se query contiene bottom in una posizione non consentita.
      **/
-    private void applyingCompletionRules(Set<OWLSubClassOfAxiom> mergedSubClassAxioms) {
-        boolean repeatLoop;
+    void checkQuery(OWLSubClassOfAxiom query) {
+        //Le stesse verifiche degli assiomi fittizi #X ⊑ sotto-classe e super-classe ⊑ #Y
+        subAndSuperCheckBottom(this.df.getOWLThing(), query.getSubClass());
+        checkBottom(query.getSuperClass());
+    }
 
-        do {
-            boolean anyRuleChanged = false;
+    /**
+     * @return il numero di query a cui doQueries() ha risposto usando la cache.
+     **/
+    public long cacheHits() {
+        return this.cache.hits();
+    }
 
-            for (OWLClassExpression key : this.S.keySet()) {
-                anyRuleChanged |= hasAnyTrue(
-                        CR1(key, mergedSubClassAxioms),
-                        CR2(key, mergedSubClassAxioms),
-                        CR3(key, mergedSubClassAxioms)
-                );
-            }
+    /**
+     * @return il numero di query che doQueries() non ha trovato nella cache e ha quindi dovuto saturare.
+     **/
+    public long cacheMisses() {
+        return this.cache.misses();
+    }
 
-            for (OWLObjectPropertyExpression key : this.R.keySet()) {
-                anyRuleChanged |= hasAnyTrue(
-                        CR4(key, mergedSubClassAxioms),
-                        CR5(key)
-                );
-            }
+    /**
+     * @return la forma canonica di query con cui viene indicizzata la cache: le intersezioni annidate sono appiattite,
+     * gli operandi ripetuti eliminati e le annotazioni ignorate. L'ordine degli operandi non conta già nelle espressioni OWLAPI.
+     **/
+    private OWLSubClassOfAxiom cacheKey(OWLSubClassOfAxiom query) {
+        return this.df.getOWLSubClassOfAxiom(canonical(query.getSubClass()), canonical(query.getSuperClass()));
+    }
 
-            DefaultDirectedGraph<OWLClassExpression, DefaultEdge> graphForCR6 = generateGraph();
-            for (OWLClassExpression key1 : this.S.keySet()) {
-                for (OWLClassExpression key2 : this.S.keySet()) {
-                    anyRuleChanged |= CR6(key1, key2, graphForCR6);
-                }
+    private OWLClassExpression canonical(OWLClassExpression expression) {
+        if (isSomeValueFrom(expression)) {
+            OWLObjectSomeValuesFrom someValuesFrom = (OWLObjectSomeValuesFrom) expression;
+            return this.df.getOWLObjectSomeValuesFrom(someValuesFrom.getProperty(), canonical(someValuesFrom.getFiller()));
+        }
+        if (isIntersection(expression)) {
+            Set<OWLClassExpression> operands = new HashSet<>();
+            for (OWLClassExpression operand : expression.asConjunctSet()) {
+                operands.add(canonical(operand));
             }
-
-            repeatLoop = anyRuleChanged;
-        } while (repeatLoop);
+            return operands.size() == 1 ? operands.iterator().next() : this.df.getOWLObjectIntersectionOf(operands);
+        }
+        return expression;
     }
 
     /**
-     * Applica la regola di completamento CR1 per l'aggiunta di nuove espressioni di classe all'insieme S(C) per una data espressione di classe C.
-     * La regola controlla se è possibile aggiungere nuove espressioni di classe C' all'insieme S(C) in base alle sottoclassi dirette nell'ontologia.
-     * Viene esclusa l'aggiunta di espressioni di classe specificate tramite restrizioni.
+     * Classifica tutte le classi con nome della TBox con una sola saturazione, invece di una query per ogni coppia di classi:
+     * le sussunzioni tra classi con nome sono lette dagli insiemi S della saturazione, da cui sono ricavate le classi
+     * equivalenti e la tassonomia dei padri e dei figli diretti.
+     * Un reasoner eager usa la chiusura già calcolata; un reasoner lazy normalizza e satura l'intera TBox senza assiomi fittizi.
+     * Le classi che non compaiono negli assiomi della TBox sono sottoclassi dirette di Thing; un reasoner ricostruito
+     * da uno snapshot classifica solo le classi che compaiono negli assiomi.
      *
-     * @param key L'espressione di classe C su cui applicare la regola di completamento.
-     * @param mergedSubClassAxioms L'insieme di assiomi di sottoclasse su cui basare il completamento.
-     * @return true se è stata aggiunta almeno una nuova espressione di classe a S(C), altrimenti false.
-     **/
-    private boolean CR1(OWLClassExpression key, Set<OWLSubClassOfAxiom> mergedSubClassAxioms) {
-        Set<OWLClassExpression> tempSet = new HashSet<>(this.S.get(key));
-        boolean ret = false;
-
-        for (OWLClassExpression setElementS : tempSet) { //Ciclo su ogni C' appartenente ad S(C)
-            for (OWLSubClassOfAxiom sub : mergedSubClassAxioms) { //Ciclo su ogni sottoclasse della base di conoscenza
-                OWLClassExpression subClass = sub.getSubClass();
-                OWLClassExpression superClass = sub.getSuperClass();
-                boolean subIsCurrent = subClass.equals(setElementS);
-
-                if (!isSomeValueFrom(subClass) && subIsCurrent && !isSomeValueFrom(superClass)) {
-                    if (this.S.get(key).add(superClass)){
-                        ret = true;
-                    }
-                }
-            }
-        }
-        return ret;
+     * @return la classificazione delle classi con nome rispetto alla TBox corrente.
+     **/
+    public Taxonomy classify() {
+        return realize().taxonomy();
     }
 
     /**
-     * Applica la regola di completamento CR2 per l'aggiunta di nuove espressioni di classe all'insieme S(C) per una data espressione di classe C.
-     * La regola controlla la possibilità di creare intersezioni tra le espressioni di classe esistenti in S(C) e aggiungere le espressioni di classe risultanti all'insieme.
-     * Viene esclusa l'aggiunta di espressioni di classe specificate tramite restrizioni.
+     * Realizza gli individui dei singleton della TBox con una sola saturazione, invece di una query {a} ⊑ C per ogni
+     * individuo e classe: dopo la classificazione, gli insiemi S dei singleton sono invertiti in un indice classe → individui,
+     * da cui sono lette le istanze di ogni classe e i tipi, anche diretti, di ogni individuo.
+     * La saturazione è quella di classify(). Il risultato è conservato e restituito anche da classify() fino alla
+     * successiva modifica della TBox.
      *
-     * @param key L'espressione di classe C su cui applicare la regola di completamento.
-     * @param mergedSubClassAxioms L'insieme di assiomi di sottoclasse su cui basare il completamento.
-     * @return true se è stata aggiunta almeno una nuova espressione di classe a S(C), altrimenti false.
-     **/
-    private boolean CR2(OWLClassExpression key, Set<OWLSubClassOfAxiom> mergedSubClassAxioms) {
-        boolean checkAdd, ret = false;
-        List<OWLClassExpression> listClass = new ArrayList<>(this.S.get(key));
-
-        for (int i = 0; i < listClass.size(); i++)
-            for (int j = i + 1; j < listClass.size(); j++) {
-                OWLObjectIntersectionOf intersectionOf = this.df.getOWLObjectIntersectionOf(listClass.get(i), listClass.get(j));
-                for (OWLSubClassOfAxiom ax : mergedSubClassAxioms) {
-                    OWLClassExpression subClass = ax.getSubClass();
-                    OWLClassExpression superClass = ax.getSuperClass();
-
-                    if (isIntersection(subClass) && subClass.equals(intersectionOf) && !isSomeValueFrom(superClass)) {
-                        if (this.S.get(key).add(superClass)){
-                            ret = true;
-                        }
-                    }
-                }
+     * @return la realizzazione degli individui, insieme alla classificazione delle classi con nome, rispetto alla TBox corrente.
+     **/
+    public Realization realize() {
+        //Il risultato viene letto e conservato sotto il lock, così che non possa sopravvivere ad una modifica della TBox
+        this.lock.readLock().lock();
+        try {
+            Realization result = this.realization;
+            if (result == null) {
+                result = classified(Realization::of);
+                this.realization = result;
             }
+            return result;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
 
-        return ret;
+    /**
+     * Lettura di una saturazione completa e della sua classificazione.
+     **/
+    private interface ClosureReader<T> {
+        T read(Taxonomy taxonomy, Saturation closure, ConceptDictionary dictionary);
     }
 
     /**
-     * Applica la regola di completamento CR3 per l'aggiunta di nuove coppie di espressioni di classe e filler all'insieme R per una data espressione di classe C.
-     * La regola esamina le sottoclassi presenti in S(C) e controlla se una di esse corrisponde alla classe soggetto di un'espressione di valore esistenziale.
-     * In tal caso, viene aggiunta una nuova coppia (espressione di classe, filler) all'insieme R corrispondente alla proprietà dell'espressione di valore esistenziale.
-     *
-     * @param key L'espressione di classe C su cui applicare la regola di completamento.
-     * @param mergedSubClassAxioms L'insieme di assiomi di sottoclasse su cui basare il completamento.
-     * @return true se è stata aggiunta almeno una nuova coppia (espressione di classe, filler) all'insieme R, altrimenti false.
-     **/
-    private boolean CR3(OWLClassExpression key, Set<OWLSubClassOfAxiom> mergedSubClassAxioms) {
-        boolean ret = false;
-        Set<OWLClassExpression> tempSet = new HashSet<>(this.S.get(key));
-
-        for (OWLClassExpression setElementS : tempSet) { //Ciclo su ogni C' appartenente ad S(C)
-            for (OWLSubClassOfAxiom sub : mergedSubClassAxioms) {
-                OWLClassExpression subClass = sub.getSubClass();
-                OWLClassExpression superClass = sub.getSuperClass();
-
-                if (!isSomeValueFrom(subClass) && subClass.equals(setElementS) && isSomeValueFrom(superClass)) {
-                    OWLObjectSomeValuesFrom castedSuperClass = (OWLObjectSomeValuesFrom) superClass;
-                    OWLObjectPropertyExpression relation = castedSuperClass.getProperty();
-                    if (this.R.get(relation).add(new Pair<>(key, castedSuperClass.getFiller()))){
-                        ret = true;
+     * Classifica la TBox come descritto in classify() e passa a reader la classificazione e la saturazione da cui è ricavata.
+     **/
+    private <T> T classified(ClosureReader<T> reader) {
+        this.lock.readLock().lock();
+        try {
+            Saturation closure = this.baseClosure;
+            TempClassTable tempClasses = this.tempClasses;
+            ConceptDictionary dictionary = this.dictionary;
+            if (closure == null) {
+                Module whole = normalizeModule(this.extractor.axioms());
+                tempClasses = whole.tempClasses;
+                dictionary = whole.dictionary;
+                closure = new Saturation(dictionary, whole.normalizedAxioms, whole.axiomIndex);
+                long start = System.nanoTime();
+                closure.saturate(this.threads);
+                closure.reportTo(this.stats, System.nanoTime() - start);
+            }
+            Set<OWLClass> classes = new HashSet<>();
+            if (this.ontology != null) {
+                //Il dizionario non dimentica le classi degli assiomi rimossi, la segnatura corrente sì
+                classes.addAll(this.ontology.getClassesInSignature(Imports.EXCLUDED));
+            } else {
+                //Un reasoner ripristinato da uno snapshot conosce le classi solo tramite il dizionario
+                Set<OWLClass> temps = new HashSet<>();
+                tempClasses.forEach((expression, tempClass) -> temps.add(tempClass));
+                for (int id = 0; id < dictionary.conceptCount(); id++) {
+                    OWLClassExpression concept = dictionary.concept(id);
+                    if (isClass(concept) && !temps.contains(concept.asOWLClass())) {
+                        classes.add(concept.asOWLClass());
                     }
                 }
             }
+            return reader.read(Taxonomy.of(closure, dictionary, classes, this.df), closure, dictionary);
+        } finally {
+            this.lock.readLock().unlock();
         }
-        return ret;
     }
 
     /**
-     * Applica la regola di completamento CR4 per l'aggiunta di nuove espressioni di classe all'insieme S(C) per una data espressione di proprietà.
-     * La regola esamina le coppie (C, D) presenti nell'insieme R relativo alla proprietà data e per ciascuna coppia controlla se esiste un'espressione di classe D'
-     * in S(D) tale che esiste una sottoclasse di D' che corrisponde alla classe soggetto di un'espressione di valore esistenziale avente come proprietà la stessa proprietà data.
-     * In tal caso, viene aggiunta una nuova espressione di classe all'insieme S(C) corrispondente alla classe soggetto della sussunzione.
+     * Normalizza e satura gli assiomi fittizi di doQueries() e verifica, per ogni i, che superClasses[i] o Nothing
+     * appartengano a S(subClasses[i]). La saturazione si interrompe appena la verifica è riuscita per ogni i.
      *
-     * @param key L'espressione di proprietà OWLObjectPropertyExpression su cui applicare la regola di completamento.
-     * @param mergedSubClassAxioms L'insieme di assiomi di sottoclasse su cui basare il completamento.
-     * @return true se è stata aggiunta almeno una nuova espressione di classe all'insieme S(C), altrimenti false.
-     **/
-    private boolean CR4(OWLObjectPropertyExpression key, Set<OWLSubClassOfAxiom> mergedSubClassAxioms){
-        Set<Pair<OWLClassExpression,OWLClassExpression>> setOfPair = this.R.get(key);
-        boolean ret = false;
-
-        for(Pair<OWLClassExpression,OWLClassExpression> pair : setOfPair){ //Ciclo sul set di Pair
-            OWLClassExpression leftOfPair = pair.getKey(); //Elemento sinistro del Pair (C)
-            OWLClassExpression rightOfPair = pair.getValue(); //Elemento destro del Pair (D)
-
-            for(OWLClassExpression expression : this.S.get(rightOfPair)){ //Ciclo sul Set di S(D) e ottengo expression = D'
-                for(OWLSubClassOfAxiom subClassOfAxiom : mergedSubClassAxioms){ //Ciclo sugli assiomi di sussunzione normalizzati
-                    if(isSomeValueFrom(subClassOfAxiom.getSubClass())){ //Verifico che lato sinistro sia esiste(r.K)
-                        OWLObjectSomeValuesFrom objectSomeValuesFrom = (OWLObjectSomeValuesFrom) subClassOfAxiom.getSubClass();
-                        OWLObjectPropertyExpression relation = objectSomeValuesFrom.getProperty();
-                        OWLClassExpression filler = objectSomeValuesFrom.getFiller(); //Prendo la parte interna dell'esistenziale (K)
-                        if(relation.equals(key) && filler.equals(expression)) {
-                            if (this.S.get(leftOfPair).add(subClassOfAxiom.getSuperClass())){ //Aggiungo a S(C) E
-                                ret = true;
-                            }
-                        }
-                    }
-                }
+     * @param signature le classi e i ruoli delle query, per cui un reasoner lazy estrae il modulo della TBox.
+     **/
+    private List<QueryAnswer> answer(Set<OWLAxiom> fictitiousSet, List<OWLClass> subClasses, List<OWLClass> superClasses,
+                                     Set<OWLEntity> signature) {
+        Module module = this.baseClosure == null ? module(signature) : null;
+        //Le classi temporanee della TBox o del modulo sono riusate, quelle nuove sono scartate al termine delle query
+        long start = System.nanoTime();
+        TempClassTable queryTempClasses = new TempClassTable(module == null ? this.tempClasses : module.tempClasses);
+        Set<OWLSubClassOfAxiom> normalizedFictitiousSet = normalization(fictitiousSet, queryTempClasses);
+        this.stats.normalized(System.nanoTime() - start, queryTempClasses.size());
+        Saturation saturation;
+        if (this.baseClosure != null) {
+            saturation = new Saturation(this.baseClosure, normalizedFictitiousSet);
+            for (OWLClass x : subClasses) {
+                saturation.activate(x);
+            }
+        } else {
+            //I concetti delle query ricevono identificativi in un dizionario figlio, scartato al termine delle query
+            ConceptDictionary queryDictionary = new ConceptDictionary(module.dictionary);
+            saturation = new Saturation(queryDictionary, new AxiomIndex(module.axiomIndex, queryDictionary, normalizedFictitiousSet));
+            //Sono saturati solo i concetti raggiungibili da #X e dai singleton, non l'intero modulo
+            for (OWLClass x : subClasses) {
+                saturation.activate(x);
             }
+            saturation.activateNominals();
         }
-        return ret;
-    }
+        for (int i = 0; i < subClasses.size(); i++) {
+            saturation.watch(subClasses.get(i), superClasses.get(i));
+        }
+        this.stats.querySaturationOpened();
+        try {
+            start = System.nanoTime();
+            saturation.saturate(this.threads);
+            saturation.reportTo(this.stats, System.nanoTime() - start);
+            QueryAnswer.Source source = QueryAnswer.Source.FIXPOINT;
+            if (saturation.stoppedEarly()) {
+                this.stats.stoppedEarly();
+                source = QueryAnswer.Source.EARLY_STOP;
+            }
 
-    /**
-     * Applica la regola di completamento CR5 per l'aggiunta del concetto di Bottom all'insieme S(C) per una data espressione di proprietà.
-     * La regola esamina le coppie (C, D) presenti nell'insieme R relativo alla proprietà data e per ciascuna coppia verifica se esiste un'espressione di classe D'
-     * in S(D) tale che D' corrisponda al concetto di Bottom. In tal caso, viene aggiunto il concetto di Bottom all'insieme S(C) corrispondente alla classe soggetto della coppia.
-     *
-     * @param key L'espressione di proprietà OWLObjectPropertyExpression su cui applicare la regola di completamento.
-     * @return true se è stata aggiunta almeno una nuova espressione di classe Bottom all'insieme S(C), altrimenti false.
-     **/
-    private boolean CR5(OWLObjectPropertyExpression key){
-        Set<Pair<OWLClassExpression,OWLClassExpression>> setOfPair = this.R.get(key);
-        boolean checkAdd, ret = false;
-        for(Pair<OWLClassExpression,OWLClassExpression> pair : setOfPair){ //Ciclo sul set di Pair
-            OWLClassExpression leftOfPair = pair.getKey(); //Elemento sinistro del Pair (C)
-            OWLClassExpression rightOfPair = pair.getValue(); //Elemento destro del Pair (D)
-            for(OWLClassExpression expression : this.S.get(rightOfPair)){ //Ciclo sul Set di S(D) e ottengo expression = D'
-                if(expression.isOWLNothing()){ //Verifico se l'espressione è il Bottom
-                    checkAdd = this.S.get(leftOfPair).add(this.df.getOWLNothing()); //Aggiungo a S(C) il Bottom
-                    if (checkAdd)
-                        ret = true;
-                }
+            List<QueryAnswer> results = new ArrayList<>(subClasses.size());
+            for (int i = 0; i < subClasses.size(); i++) {
+                OWLClass x = subClasses.get(i);
+                boolean entailed = saturation.contains(x, superClasses.get(i)) || saturation.contains(x, this.df.getOWLNothing());
+                results.add(new QueryAnswer(entailed, source));
             }
+            return results;
+        } finally {
+            this.stats.querySaturationClosed();
         }
-        return ret;
     }
 
     /**
-     * Applica la regola di completamento CR6 per l'aggiunta di espressioni di classe all'insieme S(C) per due date espressioni di classe.
-     * La regola esamina le due espressioni di classe key1 e key2 e verifica se hanno un'intersezione non vuota. Se sì, controlla se esiste un percorso nel grafo fornito
-     * tra key1 e key2. Se esiste un percorso, aggiunge tutte le espressioni di classe di key2 all'insieme S(key1).
-     *
-     * @param key1 L'espressione di classe OWLClassExpression per la quale applicare la regola di completamento CR6.
-     * @param key2 L'espressione di classe OWLClassExpression da cui aggiungere le espressioni di classe all'insieme S(key1).
-     * @param graph Il grafo diretto utilizzato per verificare l'esistenza di un percorso tra key1 e key2.
-     * @return true se sono state aggiunte nuove espressioni di classe all'insieme S(key1), altrimenti false.
-     **/
-    private boolean CR6(OWLClassExpression key1, OWLClassExpression key2, DefaultDirectedGraph<OWLClassExpression, DefaultEdge> graph){
-        if(!key1.equals(key2) && !key1.isOWLNothing()){
-            Set<OWLClassExpression> intersectionSetKey1AndKey2 = new HashSet<>(this.S.get(key1));
-            intersectionSetKey1AndKey2.retainAll(this.S.get(key2));
-
-            for(OWLClassExpression expression : intersectionSetKey1AndKey2){
-                if(isIndividual(expression)){
-                    if(new DijkstraShortestPath<>(graph).getPath(key1,key2) != null){
-                        return this.S.get(key1).addAll(this.S.get(key2));
-                    }
-                    return false;
-                }
-            }
+     * @return il ⊥-modulo normalizzato per signature, preso dalla cache dei moduli o estratto e normalizzato.
+     **/
+    private Module module(Set<OWLEntity> signature) {
+        Module module = this.modules.get(signature);
+        if (module == null) {
+            //Due query con la stessa segnatura possono costruire lo stesso modulo contemporaneamente: viene conservato l'ultimo
+            Set<OWLAxiom> axioms = this.extractor.extract(signature);
+            this.stats.extracted(axioms.size());
+            module = normalizeModule(axioms);
+            this.modules.put(signature, module);
         }
-        return false;
+        return module;
     }
 
     /**
-     * Viene definito un grafo diretto con gli elementi degli insiemi this.S e this.R
+     * Normalizza e indicizza gli assiomi axioms con una nuova tabella di classi temporanee, in parallelo come la TBox
+     * di un reasoner eager se il modulo raggiunge PARALLEL_NORMALIZATION_THRESHOLD assiomi.
      **/
-    private DefaultDirectedGraph<OWLClassExpression, DefaultEdge> generateGraph(){
-        DefaultDirectedGraph<OWLClassExpression, DefaultEdge> g = new DefaultDirectedGraph<>(DefaultEdge.class);
-        for(OWLClassExpression expression : this.S.keySet()){
-            g.addVertex(expression);
-        }
-        for(OWLObjectPropertyExpression r : this.R.keySet()){
-            for(Pair<OWLClassExpression,OWLClassExpression> pair : this.R.get(r)){
-                OWLClassExpression left = pair.getKey();
-                OWLClassExpression right = pair.getValue();
-                g.addEdge(left,right);
-            }
-        }
-        return g;
+    Module normalizeModule(Set<OWLAxiom> axioms) {
+        long start = System.nanoTime();
+        TempClassTable moduleTempClasses = new TempClassTable(this.df);
+        Set<OWLSubClassOfAxiom> normalized = ConcurrentHashMap.newKeySet();
+        forEachAxiom(axioms.stream(), axioms.size(), ax -> normalized.add(normalizeAxiom((OWLSubClassOfAxiom) ax, moduleTempClasses, normalized::add)));
+        this.stats.normalized(System.nanoTime() - start, moduleTempClasses.size());
+        return new Module(this.df, moduleTempClasses, normalized);
     }
 
+    /**
+     * Crea concetti finti (Fictitious) utili a dimostrare che subClass è sottoclasse di superClass
+     * @return due assiomi: uno dimostra che x è sottoclasse di subClass, l'altro che y è superclasse di superClass
+     **/
+    private Set<OWLAxiom> createFictitious(final OWLClassExpression subClass, final OWLClassExpression superClass,
+                                           final OWLClass x, final OWLClass y) {
+        return Stream.of(
+                this.df.getOWLSubClassOfAxiom(x, subClass),
+                this.df.getOWLSubClassOfAxiom(superClass, y)
+        ).collect(Collectors.toSet());
+    }
+
+
     /**
      * Verifica se un'espressione di classe contiene l'entità "bottom" in una posizione non consentita.
      * L'entità "bottom" rappresenta l'insieme vuoto o un concetto inconsistente nell'ontologia OWL.
@@ -426,62 +833,102 @@ public class MyReasoner {
      * Se le espressioni di classe risultanti soddisfano determinate condizioni, vengono ridotte a una singola espressione di classe.
      * Infine, viene creato un nuovo assioma di sussunzione normalizzato e aggiunto all'insieme di assiomi normalizzati.
      *
+     * Le sotto-espressioni strutturalmente identiche sono ridotte alla stessa classe temporanea di tempClasses.
+     *
      * @param subClassOfAxioms L'insieme di assiomi di sussunzione da normalizzare.
+     * @param tempClasses La tabella in cui cercare e registrare le classi temporanee.
      * @return Un insieme di assiomi di sussunzione normalizzati.
      **/
-    private Set<OWLSubClassOfAxiom> normalization(final Set<OWLAxiom> subClassOfAxioms) {
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> leftPair;
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> rightPair;
+    Set<OWLSubClassOfAxiom> normalization(final Set<OWLAxiom> subClassOfAxioms, TempClassTable tempClasses) {
         Set<OWLSubClassOfAxiom> resultSet = new HashSet<>();
-
         for (OWLAxiom ax : subClassOfAxioms) {
+            resultSet.add(normalizeAxiom((OWLSubClassOfAxiom) ax, tempClasses, resultSet::add));
+        }
+        return resultSet;
+    }
 
-            OWLSubClassOfAxiom cast = (OWLSubClassOfAxiom) ax;
-            OWLClassExpression subClass = cast.getSubClass();
-            OWLClassExpression superClass = cast.getSuperClass();
-            subAndSuperCheckBottom(subClass, superClass);
+    /**
+     * Esegue action su ogni assioma di axioms man mano che viene letto: in parallelo sul pool del reasoner se questo usa
+     * più thread e gli assiomi sono almeno PARALLEL_NORMALIZATION_THRESHOLD, altrimenti in sequenza, come anche dopo
+     * dispose(). action deve quindi poter essere eseguita da più thread contemporaneamente.
+     *
+     * @param size il numero di assiomi di axioms.
+     **/
+    private <T extends OWLAxiom> void forEachAxiom(Stream<T> axioms, long size, Consumer<? super T> action) {
+        ForkJoinTask<?> task = null;
+        if (this.normalizationPool != null && size >= PARALLEL_NORMALIZATION_THRESHOLD) {
+            try {
+                task = this.normalizationPool.submit(() -> axioms.parallel().forEach(action));
+            } catch (RejectedExecutionException e) {
+                //Il pool è stato chiuso da dispose()
+            }
+        }
+        if (task == null) {
+            axioms.forEach(action);
+            return;
+        }
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 
-            leftPair = subClassNormalization(subClass);
-            rightPair = superClassNormalization(superClass);
+    /**
+     * Normalizza un singolo assioma di sussunzione come normalization().
+     * Gli assiomi generati per definire le classi temporanee sono passati a sink appena creati, senza insiemi intermedi;
+     * più thread possono normalizzare contemporaneamente con la stessa tabella se sink può essere chiamato da più thread.
+     *
+     * @param cast L'assioma di sussunzione da normalizzare.
+     * @param tempClasses La tabella in cui cercare e registrare le classi temporanee.
+     * @param sink Il destinatario degli assiomi generati per definire le classi temporanee.
+     * @return L'assioma normalizzato che corrisponde a cast (non passato a sink).
+     **/
+    private OWLSubClassOfAxiom normalizeAxiom(OWLSubClassOfAxiom cast, TempClassTable tempClasses, Consumer<OWLSubClassOfAxiom> sink) {
+        OWLClassExpression subClass = cast.getSubClass();
+        OWLClassExpression superClass = cast.getSuperClass();
+        subAndSuperCheckBottom(subClass, superClass);
 
-            resultSet.addAll(leftPair.getKey());    //Aggiungo al resultSet il set delle normalizzazioni
-            resultSet.addAll(rightPair.getKey());   //Aggiungo al resultSet il set delle normalizzazioni
-            boolean subIsSomeValueORIntersection = isSomeValueFrom(leftPair.getValue()) || isIntersection(leftPair.getValue());
+        OWLClassExpression left = subClassNormalization(subClass, tempClasses, sink);
+        OWLClassExpression right = superClassNormalization(superClass, tempClasses, sink);
 
-            if (subIsSomeValueORIntersection && isSomeValueFrom(rightPair.getValue())) {
-                leftPair = reduceToClass(leftPair.getValue());
-                resultSet.addAll(leftPair.getKey());
-            }
-            OWLSubClassOfAxiom normalizedSubClass = this.df.getOWLSubClassOfAxiom(leftPair.getValue(), rightPair.getValue());
-            resultSet.add(normalizedSubClass);
+        boolean subIsSomeValueORIntersection = isSomeValueFrom(left) || isIntersection(left);
+
+        if (subIsSomeValueORIntersection && isSomeValueFrom(right)) {
+            left = reduceToClass(left, tempClasses, sink);
         }
-        return resultSet;
+        return this.df.getOWLSubClassOfAxiom(left, right);
     }
 
-
     /**
      * Normalizza un'espressione di classe di sottoclasse.
      * Questo metodo prende un'espressione di classe di sottoclasse e determina il suo tipo. Se l'espressione di classe è
-     * una semplice classe OWL o un oggetto OWL one of, crea una coppia contenente un insieme vuoto di assiomi di sottoclasse e l'espressione di classe originale stessa.
+     * una semplice classe OWL o un oggetto OWL one of, restituisce l'espressione di classe originale stessa.
      * Se l'espressione di classe è un'intersezione di espressioni di classe, delega il processo di normalizzazione
      * a un altro metodo chiamato `normalizeIntersectionOf`, passando l'espressione di intersezione come parametro.
      * Se l'espressione di classe è una restrizione esistenziale (some values from expression), delega il
      * processo di normalizzazione a un altro metodo chiamato `normalizeObjectSomeValueFrom`, passando la restrizione esistenziale
      * come parametro.
      * @param subClass L'espressione di classe di sottoclasse da normalizzare.
-     * @return Una coppia contenente un insieme di assiomi di sottoclasse normalizzati e l'espressione di classe normalizzata.
+     * @return L'espressione di classe normalizzata.
      **/
-    private Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> subClassNormalization(OWLClassExpression subClass) {
+    private OWLClassExpression subClassNormalization(OWLClassExpression subClass, TempClassTable tempClasses, Consumer<OWLSubClassOfAxiom> sink) {
         switch (subClass.getClassExpressionType()) {
             case OWL_CLASS:
             case OBJECT_ONE_OF:
-                return new Pair<>(new HashSet<>(), subClass);
+                return subClass;
             case OBJECT_INTERSECTION_OF:
                 OWLObjectIntersectionOf intersectionOf = (OWLObjectIntersectionOf) subClass;
-                return normalizeIntersectionOf(intersectionOf);
+                return normalizeIntersectionOf(intersectionOf, tempClasses, sink);
             case OBJECT_SOME_VALUES_FROM:
                 OWLObjectSomeValuesFrom objectSomeValuesFrom = (OWLObjectSomeValuesFrom) subClass;
-                return normalizeObjectSomeValueFrom(objectSomeValuesFrom);
+                return normalizeObjectSomeValueFrom(objectSomeValuesFrom, tempClasses, sink);
         }
         return null;
     }
@@ -489,107 +936,87 @@ public class MyReasoner {
     /**
      * Normalizza un'espressione di classe di sottoclasse.
      * Questo metodo prende un'espressione di classe di sottoclasse e determina il suo tipo. Se l'espressione di classe è
-     * una semplice classe OWL o un oggetto OWL one of, crea una coppia contenente un insieme vuoto di assiomi di sottoclasse e l'espressione di classe originale stessa.
+     * una semplice classe OWL o un oggetto OWL one of, restituisce l'espressione di classe originale stessa.
      * Se l'espressione di classe è un'intersezione di espressioni di classe, delega il processo di normalizzazione
      * a un altro metodo chiamato `normalizeIntersectionOf`, passando l'espressione di intersezione come parametro.
      * Se l'espressione di classe è una restrizione esistenziale (some values from expression), delega il
      * processo di normalizzazione a un altro metodo chiamato `normalizeObjectSomeValueFrom`, passando la restrizione esistenziale
      * come parametro.
      * @param superClass L'espressione di classe di sottoclasse da normalizzare.
-     * @return Una coppia contenente un insieme di assiomi di sottoclasse normalizzati e l'espressione di classe normalizzata.
+     * @return L'espressione di classe normalizzata.
      **/
-    private Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> superClassNormalization(OWLClassExpression superClass) {
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> returnPair;
-
+    private OWLClassExpression superClassNormalization(OWLClassExpression superClass, TempClassTable tempClasses, Consumer<OWLSubClassOfAxiom> sink) {
         switch (superClass.getClassExpressionType()) {
             case OWL_CLASS:
             case OBJECT_ONE_OF:
-                return new Pair<>(new HashSet<>(), superClass);
+                return superClass;
             case OBJECT_INTERSECTION_OF:
                 OWLObjectIntersectionOf intersectionOf = (OWLObjectIntersectionOf) superClass;
-                Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> tempPair = normalizeIntersectionOf(intersectionOf);
-                returnPair = reduceToClass(tempPair.getValue());
-                returnPair.getKey().addAll(tempPair.getKey());
-                return returnPair;
+                return reduceToClass(normalizeIntersectionOf(intersectionOf, tempClasses, sink), tempClasses, sink);
             case OBJECT_SOME_VALUES_FROM:
                 OWLObjectSomeValuesFrom objectSomeValuesFrom = (OWLObjectSomeValuesFrom) superClass;
-                return normalizeObjectSomeValueFrom(objectSomeValuesFrom);
+                return normalizeObjectSomeValueFrom(objectSomeValuesFrom, tempClasses, sink);
         }
         return null;
     }
 
     private void normalizeInnerIntersectionOfInIntersectionOf(
-            OWLClassExpression expression, Set<OWLSubClassOfAxiom> returnSet,
+            OWLClassExpression expression,
             ArrayList<OWLClassExpression> arrayListOfExpressions,
-            int position){
+            int position, TempClassTable tempClasses, Consumer<OWLSubClassOfAxiom> sink){
         if (isSomeValueFrom(expression)) {
             OWLObjectSomeValuesFrom objectSomeValuesFrom = (OWLObjectSomeValuesFrom) expression;
-            Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> tempPair = normalizeSomeValuesFromAsClass(objectSomeValuesFrom);
-            returnSet.addAll(tempPair.getKey());
-            arrayListOfExpressions.set(position, tempPair.getValue());
+            arrayListOfExpressions.set(position, normalizeSomeValuesFromAsClass(objectSomeValuesFrom, tempClasses, sink));
         }
     }
 
     /**
      * Normalizza un'espressione di intersezione di classi.
      * <p>
-     * Questo metodo prende un'espressione di intersezione di classi e la normalizza. Se l'intersezione contiene solo due
+     * Questo metodo prende un'espressione di intersezione di classi e la normalizza. Le intersezioni annidate tra gli
+     * operandi sono prima appiattite, così che ogni congiunto diventi un operando e nessuna intersezione venga trattata
+     * come un unico concetto, che la regola CR2 non saprebbe scomporre. Se l'intersezione contiene solo due
      * espressioni di classe e almeno una di esse è una restrizione esistenziale (some values from), il metodo normalizza
-     * le restrizioni esistenziali e restituisce una nuova coppia di assiomi di sottoclasse contenente le espressioni di
-     * classe normalizzate.
+     * le restrizioni esistenziali e restituisce una nuova intersezione contenente le espressioni di classe normalizzate.
      * <p>
      * Se l'intersezione contiene più di due espressioni di classe, il metodo itera su di esse. Se una delle espressioni
-     * è una restrizione esistenziale, la normalizza e aggiunge gli assiomi di sottoclasse generati al set di ritorno.
+     * è una restrizione esistenziale, la normalizza e passa gli assiomi di sottoclasse generati a sink.
      * Se l'indice della classe nell'intersezione è dispari, il metodo crea una classe temporanea e normalizza
-     * l'intersezione tra la classe precedente e quella corrente, aggiungendo gli assiomi di sottoclasse al set di ritorno.
+     * l'intersezione tra la classe precedente e quella corrente, passando gli assiomi di sottoclasse a sink.
      * Se l'indice è pari, il metodo aggiunge semplicemente la classe alla lista temporanea per la creazione di intersezioni
      * per la chiamata ricorsiva.
      * <p>
      * Se l'intersezione ha un numero dispari di espressioni di classe, il metodo crea un'intersezione ricorsiva delle classi
-     * nella lista temporanea e chiama se stesso ricorsivamente per normalizzarla. Infine, restituisce una coppia
-     * contenente gli assiomi di sottoclasse generati e l'intersezione normalizzata.
+     * nella lista temporanea e chiama se stesso ricorsivamente per normalizzarla. Infine, restituisce l'intersezione normalizzata.
      *
      * @param intersectionOf L'intersezione di espressioni di classe da normalizzare.
-     * @return Una coppia contenente un insieme di assiomi di sottoclasse normalizzati e l'intersezione normalizzata.
+     * @return L'intersezione normalizzata, di due soli operandi.
      **/
-    private Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> normalizeIntersectionOf(OWLObjectIntersectionOf intersectionOf) {
-        ArrayList<OWLClassExpression> arrayListOfExpressions = new ArrayList<>(intersectionOf.getOperandsAsList());
+    private OWLObjectIntersectionOf normalizeIntersectionOf(OWLObjectIntersectionOf intersectionOf, TempClassTable tempClasses,
+                                                            Consumer<OWLSubClassOfAxiom> sink) {
+        //asConjunctSet() appiattisce le intersezioni annidate; la nuova intersezione ne ordina gli operandi
+        ArrayList<OWLClassExpression> arrayListOfExpressions = new ArrayList<>(
+                this.df.getOWLObjectIntersectionOf(intersectionOf.asConjunctSet()).getOperandsAsList());
         int size = arrayListOfExpressions.size();
 
         List<OWLClassExpression> setTempClasses = new ArrayList<>();
-        Set<OWLSubClassOfAxiom> returnSet = new HashSet<>();
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> returnPair;
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> tempPair;
 
         if (size == 2) {
-            normalizeInnerIntersectionOfInIntersectionOf(
-                    arrayListOfExpressions.get(0),
-                    returnSet,
-                    arrayListOfExpressions,
-                    0
-            );
-            normalizeInnerIntersectionOfInIntersectionOf(
-                    arrayListOfExpressions.get(1),
-                    returnSet,
-                    arrayListOfExpressions,
-                    1
-            );
-            OWLObjectIntersectionOf newIntersectionOf =
-                    this.df.getOWLObjectIntersectionOf(arrayListOfExpressions.get(0), arrayListOfExpressions.get(1));
-            return new Pair<>(returnSet, newIntersectionOf);
+            normalizeInnerIntersectionOfInIntersectionOf(arrayListOfExpressions.get(0), arrayListOfExpressions, 0, tempClasses, sink);
+            normalizeInnerIntersectionOfInIntersectionOf(arrayListOfExpressions.get(1), arrayListOfExpressions, 1, tempClasses, sink);
+            return this.df.getOWLObjectIntersectionOf(arrayListOfExpressions.get(0), arrayListOfExpressions.get(1));
         }
 
         for (int i = 0; i < size; i++) {
-            normalizeInnerIntersectionOfInIntersectionOf(
-                    arrayListOfExpressions.get(i),
-                    returnSet,
-                    arrayListOfExpressions,
-                    i
-            );
+            normalizeInnerIntersectionOfInIntersectionOf(arrayListOfExpressions.get(i), arrayListOfExpressions, i, tempClasses, sink);
             if (i % 2 != 0) {
-                OWLClass tempClass = createTempClass();
+                OWLClassExpression prev = arrayListOfExpressions.get(i - 1);
+                OWLClassExpression curr = arrayListOfExpressions.get(i);
+                OWLObjectIntersectionOf intersectionPair = this.df.getOWLObjectIntersectionOf(prev, curr);
+                //Gli assiomi di una classe temporanea già esistente sono già stati generati
+                OWLClass tempClass = tempClasses.tempClass(intersectionPair,
+                        created -> normalizeSingleIntersectionOf(prev, curr, created, sink));
                 setTempClasses.add(tempClass); //Necessario per creare intersezione per chiamata ricorsiva
-                returnSet.addAll(normalizeSingleIntersectionOf(arrayListOfExpressions.get(i - 1), arrayListOfExpressions.get(i), tempClass));
             }
         }
 
@@ -598,100 +1025,66 @@ public class MyReasoner {
         }
 
         OWLObjectIntersectionOf intersectionRecur = this.df.getOWLObjectIntersectionOf(setTempClasses); //Creo intersezione per ricorsione
-        returnPair = normalizeIntersectionOf(intersectionRecur); //RICORSIONE
-        returnPair.getKey().addAll(returnSet); //Aggiunta elementi al set (solo SubClasses)
-        return returnPair;
+        return normalizeIntersectionOf(intersectionRecur, tempClasses, sink); //RICORSIONE
     }
 
     /**
      * Normalizza un'espressione di restrizione esistenziale (some values from).
      * <p>
      * Questo metodo prende un'espressione di restrizione esistenziale (some values from) e la normalizza. Se la filler
-     * dell'espressione è una classe semplice o un singleton, restituisce una coppia di assiomi di sottoclasse vuota
-     * e l'espressione di restrizione esistenziale stessa.
+     * dell'espressione è una classe semplice o un singleton, restituisce l'espressione di restrizione esistenziale stessa.
      * <p>
      * Se il filler dell'espressione è un'intersezione di classi, il metodo chiama il metodo normalizeIntersectionOf
      * per normalizzare l'intersezione. Quindi, riduce l'intersezione ad una singola classe e genera una nuova
-     * restrizione esistenziale con la stessa relazione e la classe ridotta. Restituisce una coppia contenente gli assiomi
-     * di sottoclasse generati e la nuova restrizione esistenziale normalizzata.
+     * restrizione esistenziale con la stessa relazione e la classe ridotta.
      * <p>
      * Se il filler dell'espressione è un'altra restrizione esistenziale, il metodo chiama se stesso ricorsivamente per
-     * normalizzare la restrizione esistenziale interna. Quindi, genera una nuova restrizione esistenziale con la stessa
-     * relazione e la classe normalizzata. Se la classe normalizzata è ancora una restrizione esistenziale, riduce la
-     * restrizione ad una singola classe temporanea. Restituisce una coppia contenente gli assiomi di sottoclasse generati
-     * e la nuova restrizione esistenziale normalizzata.
+     * normalizzare la restrizione esistenziale interna. Quindi, riduce la restrizione interna normalizzata ad una singola
+     * classe temporanea e genera una nuova restrizione esistenziale con la stessa relazione e la classe temporanea.
      * <p>
+     * Gli assiomi di sottoclasse generati sono passati a sink.
      * @param someValuesFrom La restrizione esistenziale da normalizzare.
-     * @return Una coppia contenente un insieme di assiomi di sottoclasse normalizzati e la restrizione esistenziale
-     *         normalizzata.
+     * @return La restrizione esistenziale normalizzata.
      **/
     //TORNA ESISTENZIALE DI UNA CLASSE (Exist(r.C))
-    private Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> normalizeObjectSomeValueFrom(OWLObjectSomeValuesFrom someValuesFrom) {
+    private OWLClassExpression normalizeObjectSomeValueFrom(OWLObjectSomeValuesFrom someValuesFrom, TempClassTable tempClasses,
+                                                           Consumer<OWLSubClassOfAxiom> sink) {
         OWLObjectPropertyExpression relation = someValuesFrom.getProperty();
         OWLClassExpression filler = someValuesFrom.getFiller();
 
-        Set<OWLSubClassOfAxiom> returnSet = new HashSet<>();
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> tempPair;
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> reduceToClassPair;
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> returnPair = null;
-
         boolean isFillerClassORIndividual = isClass(filler) || isIndividual(filler);
         if (isFillerClassORIndividual) {
-            return new Pair<>(returnSet, someValuesFrom);
+            return someValuesFrom;
         } else if (isIntersection(filler)) {
-            tempPair = normalizeIntersectionOf((OWLObjectIntersectionOf) filler); //Torna pair di set e un and singolo
-            reduceToClassPair = reduceToClass(tempPair.getValue()); //Prende l'and singolo e lo riduce ad una classe TEMP
-            reduceToClassPair.getKey().addAll((tempPair.getKey()));
-            OWLObjectSomeValuesFrom normalizedSomeValuesFrom = this.df.getOWLObjectSomeValuesFrom(relation, reduceToClassPair.getValue());
-            returnPair = new Pair<>(reduceToClassPair.getKey(), normalizedSomeValuesFrom);
-        }
-        else if (isSomeValueFrom(filler)) {
-            //REMINDER: TORNARE ESISTENZIALE DI CLASSE (REDUCETOCLASSPAIR POTREBBE ESSERE VUOTO DOPO IF)
-            tempPair = normalizeObjectSomeValueFrom((OWLObjectSomeValuesFrom) filler); //Torna un set e una classe temp o esistenziale
-            OWLClassExpression expression = tempPair.getValue(); //Prendo l'espressione a destra della coppia (che è esistenziale di una classe)
-            reduceToClassPair = new Pair<>(tempPair.getKey(), expression); //Inizializzo Pair con contenuto uguale a tempPair
-
+            OWLObjectIntersectionOf intersectionOf = normalizeIntersectionOf((OWLObjectIntersectionOf) filler, tempClasses, sink); //Torna un and singolo
+            OWLClass reduced = reduceToClass(intersectionOf, tempClasses, sink); //Prende l'and singolo e lo riduce ad una classe TEMP
+            return this.df.getOWLObjectSomeValuesFrom(relation, reduced);
+        } else if (isSomeValueFrom(filler)) {
+            OWLClassExpression expression = normalizeObjectSomeValueFrom((OWLObjectSomeValuesFrom) filler, tempClasses, sink); //Torna un esistenziale di una classe
             if (isSomeValueFrom(expression)) {
-                reduceToClassPair = reduceToClass(expression); //trasformo l'esistenziale nuovo in una variabile temp
-                tempPair.getKey().addAll(reduceToClassPair.getKey()); //Aggiungo nel Set gli assiomi di reduceToClass (se non entrato in if non aggiunge nulla)
+                expression = reduceToClass(expression, tempClasses, sink); //trasformo l'esistenziale nuovo in una variabile temp
             }
             //Creo esistenziale con quello di ora con il temp creato prima
-            OWLObjectSomeValuesFrom normalizedSomeValuesFrom = this.df.getOWLObjectSomeValuesFrom(relation, reduceToClassPair.getValue());
-            returnPair = new Pair<>(tempPair.getKey(), normalizedSomeValuesFrom); //Creo il Pair di ritorno con insieme di assiomi + esistenziale normalizzato
+            return this.df.getOWLObjectSomeValuesFrom(relation, expression);
         }
-        return returnPair;
-    }
-
-    private OWLClass createTempClass() {
-        OWLClass tempClass = this.df.getOWLClass(IRI.create("#TEMP" + universalTempCount));
-        universalTempCount++;
-        return tempClass;
+        return null;
     }
 
     /**
      * Normalizza una restrizione esistenziale come una classe.
      *
      * Questo metodo prende un'espressione di restrizione esistenziale (some values from) e la normalizza come una classe.
-     * Inizialmente, chiama il metodo normalizeObjectSomeValueFrom per normalizzare l'espressione esistenziale, ottenendo
-     * una coppia di assiomi di sottoclasse e l'espressione esistenziale normalizzata. Gli assiomi generati durante la
-     * normalizzazione vengono aggiunti a un set globale di assiomi. Successivamente, l'esistenziale normalizzato viene
-     * ridotto ad una singola classe chiamando il metodo reduceToClass. Gli assiomi generati durante la riduzione a classe
-     * vengono aggiunti al set globale di assiomi. Infine, restituisce una coppia contenente il set di assiomi generati
-     * durante la normalizzazione e l'espressione esistenziale ridotta a classe.
+     * Inizialmente, chiama il metodo normalizeObjectSomeValueFrom per normalizzare l'espressione esistenziale;
+     * successivamente, l'esistenziale normalizzato viene ridotto ad una singola classe chiamando il metodo reduceToClass.
+     * Gli assiomi generati durante la normalizzazione e la riduzione a classe sono passati a sink.
      *
      * @param objectSomeValuesFrom La restrizione esistenziale da normalizzare come classe.
-     * @return Una coppia contenente un insieme di assiomi di sottoclasse generati durante la normalizzazione e
-     *         l'espressione esistenziale ridotta a classe.
+     * @return L'espressione esistenziale ridotta a classe.
      **/
-    private Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> normalizeSomeValuesFromAsClass(OWLObjectSomeValuesFrom objectSomeValuesFrom) {
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> tempPair = null;
-
-        tempPair = normalizeObjectSomeValueFrom(objectSomeValuesFrom); //Norm. Exist. torna Pair di assiomi e esistenziale (Exist(r.C))
-        Set<OWLSubClassOfAxiom> returnSet = new HashSet<>(tempPair.getKey()); //Aggiungo gli assiomi generati durante la normalizzazione al set di assiomi globale
-        tempPair = reduceToClass(tempPair.getValue()); //Riduco a classe l'esistenziale attuale (perché siamo in una serie di and)
-        returnSet.addAll(tempPair.getKey()); //Aggiungo gli assiomi generati durante la riduzione a classe dell'esistenziale
-
-        return new Pair<>(returnSet, tempPair.getValue());
+    private OWLClass normalizeSomeValuesFromAsClass(OWLObjectSomeValuesFrom objectSomeValuesFrom, TempClassTable tempClasses,
+                                                    Consumer<OWLSubClassOfAxiom> sink) {
+        OWLClassExpression normalized = normalizeObjectSomeValueFrom(objectSomeValuesFrom, tempClasses, sink); //Norm. Exist. torna un esistenziale (Exist(r.C))
+        return reduceToClass(normalized, tempClasses, sink); //Riduco a classe l'esistenziale attuale (perché siamo in una serie di and)
     }
 
     /**
@@ -701,27 +1094,23 @@ public class MyReasoner {
      * Se l'espressione è un'intersezione di classi, viene decomposta e le classi risultanti vengono normalizzate come
      * espressioni singole utilizzando il metodo normalizeSingleIntersectionOf. Se l'espressione è una restrizione
      * esistenziale (some values from), viene normalizzata come una singola classe utilizzando il metodo
-     * normalizeSingleObjectSomeValuesFrom. Infine, restituisce una coppia contenente un insieme di assiomi di
-     * sottoclasse generati durante la normalizzazione e l'espressione ridotta a una singola classe.
+     * normalizeSingleObjectSomeValuesFrom. Gli assiomi generati sono passati a sink.
+     * Se tempClasses contiene già una classe temporanea per l'espressione, restituisce quella senza generare assiomi.
      *
      * @param expression L'espressione complessa da ridurre a una singola classe.
-     * @return Una coppia contenente un insieme di assiomi di sottoclasse generati durante la normalizzazione e
-     *         l'espressione ridotta a una singola classe.
-     **/
-    private Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> reduceToClass(OWLClassExpression expression) {
-        OWLClass tempClass = createTempClass();
-        ArrayList<OWLClassExpression> arrayListOfExpressions;
-        Pair<Set<OWLSubClassOfAxiom>, OWLClassExpression> returnPair = null;
-        if (expression.getClassExpressionType().equals(ClassExpressionType.OBJECT_INTERSECTION_OF)) {
-            OWLObjectIntersectionOf intersectionOf = (OWLObjectIntersectionOf) expression;
-            arrayListOfExpressions = new ArrayList<>(intersectionOf.getOperandsAsList());
-            returnPair = new Pair<>(normalizeSingleIntersectionOf(arrayListOfExpressions.get(0),
-                    arrayListOfExpressions.get(1), tempClass), tempClass);
-        } else if (expression.getClassExpressionType().equals(ClassExpressionType.OBJECT_SOME_VALUES_FROM)) {
-            OWLObjectSomeValuesFrom objectSomeValuesFrom = (OWLObjectSomeValuesFrom) expression;
-            returnPair = new Pair<>(normalizeSingleObjectSomeValuesFrom(objectSomeValuesFrom, tempClass), tempClass);
-        }
-        return returnPair;
+     * @param tempClasses La tabella delle classi temporanee già create.
+     * @return L'espressione ridotta a una singola classe.
+     **/
+    private OWLClass reduceToClass(OWLClassExpression expression, TempClassTable tempClasses, Consumer<OWLSubClassOfAxiom> sink) {
+        //Sotto-espressione già ridotta: i suoi assiomi sono già stati generati
+        return tempClasses.tempClass(expression, tempClass -> {
+            if (expression.getClassExpressionType().equals(ClassExpressionType.OBJECT_INTERSECTION_OF)) {
+                List<OWLClassExpression> operands = ((OWLObjectIntersectionOf) expression).getOperandsAsList();
+                normalizeSingleIntersectionOf(operands.get(0), operands.get(1), tempClass, sink);
+            } else if (expression.getClassExpressionType().equals(ClassExpressionType.OBJECT_SOME_VALUES_FROM)) {
+                normalizeSingleObjectSomeValuesFrom((OWLObjectSomeValuesFrom) expression, tempClass, sink);
+            }
+        });
     }
 
     /**
@@ -735,15 +1124,12 @@ public class MyReasoner {
      *
      * @param objectSomeValuesFrom La restrizione esistenziale (some values from) da normalizzare.
      * @param tempClass La classe temporanea utilizzata per la normalizzazione.
-     * @return Un insieme di assiomi di sottoclasse generati durante la normalizzazione.
+     * @param sink Il destinatario degli assiomi di sottoclasse generati durante la normalizzazione.
      **/
-    private Set<OWLSubClassOfAxiom> normalizeSingleObjectSomeValuesFrom(OWLObjectSomeValuesFrom objectSomeValuesFrom, OWLClass tempClass) {
-        Set<OWLSubClassOfAxiom> returnSet = new HashSet<>();
-        OWLSubClassOfAxiom sub1 = this.df.getOWLSubClassOfAxiom(tempClass, objectSomeValuesFrom);
-        OWLSubClassOfAxiom sub2 = this.df.getOWLSubClassOfAxiom(objectSomeValuesFrom, tempClass);
-        returnSet.add(sub1);
-        returnSet.add(sub2);
-        return returnSet;
+    private void normalizeSingleObjectSomeValuesFrom(OWLObjectSomeValuesFrom objectSomeValuesFrom, OWLClass tempClass,
+                                                     Consumer<OWLSubClassOfAxiom> sink) {
+        sink.accept(this.df.getOWLSubClassOfAxiom(tempClass, objectSomeValuesFrom));
+        sink.accept(this.df.getOWLSubClassOfAxiom(objectSomeValuesFrom, tempClass));
     }
 
     /**
@@ -758,18 +1144,12 @@ public class MyReasoner {
      * @param prev L'espressione di classe precedente nell'intersezione.
      * @param curr L'espressione di classe corrente nell'intersezione.
      * @param tempClass La classe temporanea utilizzata per la normalizzazione.
-     * @return Un insieme di assiomi di sottoclasse generati durante la normalizzazione.
-     **/
-    private Set<OWLSubClassOfAxiom> normalizeSingleIntersectionOf(OWLClassExpression prev,
-                                                                  OWLClassExpression curr, OWLClass tempClass) {
-        Set<OWLSubClassOfAxiom> returnSet = new HashSet<>();
-        OWLSubClassOfAxiom sub1 = this.df.getOWLSubClassOfAxiom(tempClass, prev);
-        OWLSubClassOfAxiom sub2 = this.df.getOWLSubClassOfAxiom(tempClass, curr);
-        OWLObjectIntersectionOf intersectionPair = this.df.getOWLObjectIntersectionOf(prev, curr);
-        OWLSubClassOfAxiom sub3 = this.df.getOWLSubClassOfAxiom(intersectionPair, tempClass);
-        returnSet.add(sub1);
-        returnSet.add(sub2);
-        returnSet.add(sub3);
-        return returnSet;
+     * @param sink Il destinatario degli assiomi di sottoclasse generati durante la normalizzazione.
+     **/
+    private void normalizeSingleIntersectionOf(OWLClassExpression prev, OWLClassExpression curr, OWLClass tempClass,
+                                               Consumer<OWLSubClassOfAxiom> sink) {
+        sink.accept(this.df.getOWLSubClassOfAxiom(tempClass, prev));
+        sink.accept(this.df.getOWLSubClassOfAxiom(tempClass, curr));
+        sink.accept(this.df.getOWLSubClassOfAxiom(this.df.getOWLObjectIntersectionOf(prev, curr), tempClass));
     }
 }
\ No newline at end of file
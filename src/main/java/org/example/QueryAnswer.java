@@ -0,0 +1,55 @@
+package org.example;
+
+/**
+ * La risposta ad una query di sussunzione insieme alla sua provenienza: la cache delle risposte, una saturazione
+ * interrotta appena derivati tutti gli obiettivi del lotto, oppure una saturazione completata fino al punto fisso.
+ * Una risposta negativa proviene sempre dalla cache o dal punto fisso, dato che l'assenza di #Y da S(#X) è definitiva
+ * solo quando non restano derivazioni da applicare.
+ **/
+public final class QueryAnswer {
+
+    /**
+     * La provenienza di una risposta.
+     **/
+    public enum Source {
+        /**
+         * La risposta è stata trovata nella cache.
+         **/
+        CACHE,
+        /**
+         * La saturazione è stata interrotta appena #Y o Nothing sono stati derivati in S(#X) per tutte le query del lotto.
+         **/
+        EARLY_STOP,
+        /**
+         * La saturazione è stata completata fino al punto fisso.
+         **/
+        FIXPOINT
+    }
+
+    private final boolean entailed;
+    private final Source source;
+
+    QueryAnswer(boolean entailed, Source source) {
+        this.entailed = entailed;
+        this.source = source;
+    }
+
+    /**
+     * @return true se la sussunzione della query è conseguenza della TBox.
+     **/
+    public boolean isEntailed() {
+        return this.entailed;
+    }
+
+    /**
+     * @return la provenienza della risposta.
+     **/
+    public Source source() {
+        return this.source;
+    }
+
+    @Override
+    public String toString() {
+        return this.entailed + " (" + this.source + ")";
+    }
+}
@@ -0,0 +1,162 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Raggruppa in micro-lotti le richieste di sussunzione che arrivano contemporaneamente da più thread: un unico thread
+ * preleva la prima richiesta in attesa insieme a tutte quelle accodate nel frattempo e risponde a tutte con una sola
+ * chiamata a doQueries(), quindi con una sola saturazione. Le richieste che arrivano durante la saturazione formano il
+ * lotto successivo, per cui la dimensione dei lotti cresce con il carico senza ritardare le richieste isolate.
+ **/
+final class QueryBatcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryBatcher.class);
+    private static final Request STOP = new Request(new ArrayList<>());
+
+    private final MyReasoner reasoner;
+    private final long timeoutNanos;
+    private final BlockingQueue<Request> pending = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private boolean closed;
+
+    private static final class Request {
+
+        final List<OWLSubClassOfAxiom> queries;
+        final CompletableFuture<List<Boolean>> result = new CompletableFuture<>();
+
+        Request(List<OWLSubClassOfAxiom> queries) {
+            this.queries = queries;
+        }
+    }
+
+    /**
+     * @param timeout il tempo massimo di attesa della risposta di una richiesta in doQueries().
+     **/
+    QueryBatcher(MyReasoner reasoner, long timeout, TimeUnit unit) {
+        this.reasoner = reasoner;
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.dispatcher = new Thread(this::dispatch, "query-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Accoda le query e attende la risposta del lotto in cui sono state inserite. Le query sono verificate prima di
+     * essere accodate, così che una query non valida venga rifiutata solo alla richiesta che la contiene.
+     *
+     * @return per ogni query, nello stesso ordine, la risposta di doQueries().
+     * @throws IllegalArgumentException se doQueries() rifiuterebbe una delle query.
+     * @throws IllegalStateException se il batcher è stato chiuso o il lotto della richiesta è fallito.
+     * @throws TimeoutException se il lotto della richiesta non ha risposto entro il tempo massimo.
+     **/
+    List<Boolean> doQueries(List<OWLSubClassOfAxiom> queries) throws InterruptedException, TimeoutException {
+        for (OWLSubClassOfAxiom query : queries) {
+            this.reasoner.checkQuery(query);
+        }
+        Request request = new Request(queries);
+        //La verifica e l'inserimento avvengono sotto lo stesso lock di close(), così che ogni richiesta accodata preceda STOP
+        synchronized (this) {
+            if (this.closed) {
+                throw new IllegalStateException("Batcher chiuso");
+            }
+            this.pending.add(request);
+        }
+        try {
+            return request.result.get(this.timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            request.result.cancel(false); //Il thread dei lotti scarta la richiesta se non l'ha ancora prelevata
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void dispatch() {
+        List<Request> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(this.pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            this.pending.drainTo(batch);
+            boolean stop = batch.remove(STOP);
+            batch.removeIf(request -> request.result.isDone());
+            answer(batch);
+            batch.clear();
+            if (stop) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Risponde a tutte le richieste del lotto con una sola saturazione. Le query sono già state verificate da doQueries(),
+     * quindi un errore riguarda l'intero lotto: viene registrato e riportato a tutte le sue richieste.
+     **/
+    private void answer(List<Request> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<OWLSubClassOfAxiom> queries = new ArrayList<>();
+        for (Request request : batch) {
+            queries.addAll(request.queries);
+        }
+        List<Boolean> answers;
+        try {
+            answers = this.reasoner.doQueries(queries);
+        } catch (RuntimeException e) {
+            LOG.error("Lotto di {} richieste ({} query) fallito", batch.size(), queries.size(), e);
+            for (Request request : batch) {
+                request.result.completeExceptionally(new IllegalStateException("Lotto di query fallito", e));
+            }
+            return;
+        }
+        int from = 0;
+        for (Request request : batch) {
+            int to = from + request.queries.size();
+            request.result.complete(new ArrayList<>(answers.subList(from, to)));
+            from = to;
+        }
+    }
+
+    /**
+     * Risponde alle richieste già accodate e termina il thread dei lotti. Le richieste rimaste senza risposta, se il
+     * thread dei lotti è stato interrotto, ricevono un IllegalStateException.
+     **/
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.pending.add(STOP);
+        }
+        try {
+            this.dispatcher.join();
+        } catch (InterruptedException e) {
+            this.dispatcher.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        List<Request> unanswered = new ArrayList<>();
+        this.pending.drainTo(unanswered);
+        for (Request request : unanswered) {
+            request.result.completeExceptionally(new IllegalStateException("Batcher chiuso"));
+        }
+    }
+}
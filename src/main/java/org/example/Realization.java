@@ -0,0 +1,154 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLIndividual;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectOneOf;
+
+import java.util.*;
+
+/**
+ * Realizzazione degli individui che compaiono nei singleton {a} della TBox, ricavata dalla stessa saturazione completa
+ * di una Taxonomy: a è un'istanza della classe con nome C se C ∈ S({a}) (di tutte le classi, se Nothing ∈ S({a})).
+ * <p>
+ * Durante la costruzione gli insiemi S dei singleton sono invertiti in un indice classe → individui, così che sia
+ * le istanze di una classe sia i tipi di un individuo siano letture di un indice e non query. I tipi diretti di un
+ * individuo sono i nodi più specifici della tassonomia tra quelli dei suoi tipi.
+ **/
+public final class Realization {
+
+    private final Taxonomy taxonomy;
+    private final Map<OWLNamedIndividual, Set<OWLClass>> types = new HashMap<>();
+    private final Map<OWLClass, Set<OWLNamedIndividual>> instances = new HashMap<>();
+    private final Map<OWLNamedIndividual, Set<Set<OWLClass>>> directTypes = new HashMap<>();
+    private final Map<Set<OWLClass>, Set<OWLNamedIndividual>> directInstances = new IdentityHashMap<>();
+
+    private Realization(Taxonomy taxonomy) {
+        this.taxonomy = taxonomy;
+    }
+
+    /**
+     * Realizza gli individui dei singleton di dictionary rispetto alla saturazione completa closure, già classificata in taxonomy.
+     * Sono considerati solo i singleton con un unico individuo con nome; i tipi sono le classi classificate da taxonomy.
+     **/
+    static Realization of(Taxonomy taxonomy, Saturation closure, ConceptDictionary dictionary) {
+        Realization realization = new Realization(taxonomy);
+        dictionary.forEachNominal(id -> {
+            List<OWLIndividual> operands = ((OWLObjectOneOf) dictionary.concept(id)).getOperandsAsList();
+            if (operands.size() == 1 && operands.get(0).isNamed()) {
+                realization.add(operands.get(0).asOWLNamedIndividual(), closure.subsumers(id), dictionary);
+            }
+        });
+        return realization;
+    }
+
+    /**
+     * Registra a con i tipi letti da setOfA = S({a}) e lo aggiunge all'indice classe → individui.
+     **/
+    private void add(OWLNamedIndividual individual, IntSet setOfA, ConceptDictionary dictionary) {
+        Set<OWLClass> typesOfA = new HashSet<>();
+        if (setOfA != null && setOfA.contains(ConceptDictionary.NOTHING)) {
+            typesOfA.addAll(this.taxonomy.subsumers(this.taxonomy.nothing())); //Un individuo insoddisfacibile appartiene a tutte le classi
+        } else {
+            typesOfA.add(this.taxonomy.thing());
+            if (setOfA != null) {
+                setOfA.forEach(expression -> {
+                    OWLClassExpression concept = dictionary.concept(expression);
+                    if (!concept.isAnonymous() && this.taxonomy.isClassified(concept.asOWLClass())) {
+                        typesOfA.add(concept.asOWLClass());
+                    }
+                });
+            }
+        }
+        this.types.put(individual, Collections.unmodifiableSet(typesOfA));
+        for (OWLClass type : typesOfA) {
+            this.instances.computeIfAbsent(type, c -> new HashSet<>()).add(individual);
+        }
+
+        //I nodi dei tipi sono considerati dal più specifico: un nodo è diretto se non è superclasse di un nodo diretto già trovato
+        Set<Set<OWLClass>> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (OWLClass type : typesOfA) {
+            nodes.add(this.taxonomy.equivalentClasses(type));
+        }
+        List<Set<OWLClass>> candidates = new ArrayList<>(nodes);
+        candidates.sort(Comparator.comparingInt((Set<OWLClass> n) -> this.taxonomy.subsumers(n.iterator().next()).size()).reversed());
+        List<Set<OWLClass>> direct = new ArrayList<>();
+        for (Set<OWLClass> candidate : candidates) {
+            OWLClass candidateClass = candidate.iterator().next();
+            boolean covered = false;
+            for (Set<OWLClass> node : direct) {
+                if (this.taxonomy.isSubClassOf(node.iterator().next(), candidateClass)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                direct.add(candidate);
+                this.directInstances.computeIfAbsent(candidate, n -> new HashSet<>()).add(individual);
+            }
+        }
+        this.directTypes.put(individual, new HashSet<>(direct));
+    }
+
+    private Set<OWLClass> checkedTypes(OWLNamedIndividual individual) {
+        Set<OWLClass> typesOfA = this.types.get(individual);
+        if (typesOfA == null) {
+            throw new IllegalArgumentException("Individuo non realizzato: " + individual);
+        }
+        return typesOfA;
+    }
+
+    /**
+     * @return la classificazione delle classi con nome calcolata con la stessa saturazione.
+     **/
+    public Taxonomy taxonomy() {
+        return this.taxonomy;
+    }
+
+    /**
+     * @return gli individui realizzati, cioè quelli che compaiono in un singleton della TBox.
+     **/
+    public Set<OWLNamedIndividual> individuals() {
+        return Collections.unmodifiableSet(this.types.keySet());
+    }
+
+    /**
+     * @return true se individual è un'istanza di c.
+     **/
+    public boolean isInstanceOf(OWLNamedIndividual individual, OWLClass c) {
+        this.taxonomy.equivalentClasses(c);
+        return checkedTypes(individual).contains(c);
+    }
+
+    /**
+     * @return gli individui che sono istanze di c, direttamente o tramite una sua sottoclasse.
+     **/
+    public Set<OWLNamedIndividual> instancesOf(OWLClass c) {
+        this.taxonomy.equivalentClasses(c);
+        return Collections.unmodifiableSet(this.instances.getOrDefault(c, Collections.emptySet()));
+    }
+
+    /**
+     * @return gli individui di cui il nodo di c è un tipo diretto.
+     **/
+    public Set<OWLNamedIndividual> directInstancesOf(OWLClass c) {
+        Set<OWLClass> node = this.taxonomy.equivalentClasses(c);
+        return Collections.unmodifiableSet(this.directInstances.getOrDefault(node, Collections.emptySet()));
+    }
+
+    /**
+     * @return tutte le classi con nome di cui individual è un'istanza, compreso Thing.
+     **/
+    public Set<OWLClass> types(OWLNamedIndividual individual) {
+        return checkedTypes(individual);
+    }
+
+    /**
+     * @return i nodi più specifici della tassonomia tra quelli dei tipi di individual.
+     **/
+    public Set<Set<OWLClass>> directTypes(OWLNamedIndividual individual) {
+        checkedTypes(individual);
+        return new HashSet<>(this.directTypes.get(individual));
+    }
+}
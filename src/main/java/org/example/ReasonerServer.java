@@ -0,0 +1,388 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.semanticweb.owlapi.expression.ShortFormEntityChecker;
+import org.semanticweb.owlapi.io.OWLParserException;
+import org.semanticweb.owlapi.manchestersyntax.parser.ManchesterOWLSyntaxClassExpressionParser;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.BidirectionalShortFormProviderAdapter;
+import org.semanticweb.owlapi.util.ShortFormProvider;
+import org.semanticweb.owlapi.util.SimpleShortFormProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Server HTTP locale che espone un reasoner: le richieste sono servite ciascuna da un proprio thread (un virtual thread,
+ * se la JVM li supporta) e le query di sussunzione di richieste contemporanee sono raggruppate da un QueryBatcher in
+ * lotti risolti con una sola saturazione. Le classi, gli individui e le espressioni sono scritti in sintassi Manchester
+ * usando i nomi brevi delle entità dell'ontologia. <br>
+ * - POST /subsumption: una query "C SubClassOf D" per riga, a cui si risponde con true o false per riga; con
+ * Content-Type application/json il corpo è un array di query o un oggetto {"queries": [...]}, e la risposta è
+ * {"results": [...]}; <br>
+ * - GET /classification?class=C: le classi equivalenti a C e i nodi delle sue superclassi e sottoclassi dirette; <br>
+ * - GET /instances?class=C[&amp;direct=true]: gli individui, anche solo diretti, di C; <br>
+ * - GET /types?individual=a[&amp;direct=true]: le classi, anche solo dirette, di a. <br>
+ * Le risposte sono in JSON se la richiesta accetta application/json o lo invia senza accettare text/plain, altrimenti
+ * in testo semplice. Le richieste non valide ricevono 400 con il messaggio dell'errore, i percorsi sconosciuti 404 e
+ * i metodi non previsti 405. Le query senza risposta entro QUERY_TIMEOUT_SECONDS ricevono 503; gli errori interni
+ * ricevono 500 con un messaggio generico e sono registrati nel log, senza esporre i dettagli dell'eccezione.
+ **/
+public final class ReasonerServer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReasonerServer.class);
+    private static final String JSON = "application/json";
+    private static final String SUBCLASS_OF = "SubClassOf";
+
+    /**
+     * Il tempo massimo di attesa della risposta del lotto di una richiesta di sussunzione.
+     **/
+    private static final long QUERY_TIMEOUT_SECONDS = 60;
+
+    private final MyReasoner reasoner;
+    private final OWLOntology ontology;
+    private final OWLDataFactory df;
+    private final ShortFormProvider shortForms = new SimpleShortFormProvider();
+    private final QueryBatcher batcher;
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    /**
+     * Avvia il server su address; la porta 0 sceglie una porta libera, che si legge da address().
+     *
+     * @param reasoner il reasoner che risponde alle query.
+     * @param ontology l'ontologia del reasoner, da cui sono letti i nomi delle entità.
+     * @throws IOException se non è possibile aprire la porta.
+     **/
+    public ReasonerServer(MyReasoner reasoner, OWLOntology ontology, InetSocketAddress address) throws IOException {
+        this.reasoner = reasoner;
+        this.ontology = ontology;
+        this.df = ontology.getOWLOntologyManager().getOWLDataFactory();
+        this.server = HttpServer.create(address, 0);
+        this.batcher = new QueryBatcher(reasoner, QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        this.executor = requestExecutor();
+        this.server.createContext("/subsumption", exchange -> handle(exchange, "POST", this::subsumption));
+        this.server.createContext("/classification", exchange -> handle(exchange, "GET", this::classification));
+        this.server.createContext("/instances", exchange -> handle(exchange, "GET", this::instances));
+        this.server.createContext("/types", exchange -> handle(exchange, "GET", this::types));
+        this.server.setExecutor(this.executor);
+        this.server.start();
+    }
+
+    /**
+     * I virtual thread sono disponibili solo da Java 21, mentre il progetto è compilato per Java 8: l'executor viene
+     * cercato per riflessione e, se manca, le richieste sono servite da un pool di thread tradizionali.
+     **/
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "reasoner-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @return l'indirizzo su cui il server è in ascolto.
+     **/
+    public InetSocketAddress address() {
+        return this.server.getAddress();
+    }
+
+    /**
+     * Smette di accettare richieste, attende quelle in corso e termina i thread del server; il reasoner non viene chiuso.
+     **/
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.batcher.close();
+    }
+
+    private interface Handler {
+        String handle(Request request) throws InterruptedException, TimeoutException;
+    }
+
+    /**
+     * Una richiesta letta dallo scambio HTTP: il corpo, i parametri della query string e il formato della risposta.
+     **/
+    private static final class Request {
+
+        final String body;
+        final Map<String, String> parameters;
+        final boolean json;
+        final boolean jsonBody;
+
+        Request(HttpExchange exchange) throws IOException {
+            this.body = read(exchange.getRequestBody());
+            this.parameters = parameters(exchange.getRequestURI().getRawQuery());
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            this.jsonBody = contentType != null && contentType.startsWith(JSON);
+            //Una richiesta in JSON riceve una risposta in JSON, a meno che non chieda esplicitamente del testo
+            this.json = accept != null && accept.contains(JSON) || this.jsonBody && (accept == null || !accept.contains("text/plain"));
+        }
+
+        String parameter(String name) {
+            String value = this.parameters.get(name);
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException("Parametro mancante: " + name);
+            }
+            return value;
+        }
+
+        boolean flag(String name) {
+            return Boolean.parseBoolean(this.parameters.get(name));
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                respond(exchange, 404, "text/plain", "Percorso sconosciuto: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                respond(exchange, 405, "text/plain", "Metodo non consentito: " + exchange.getRequestMethod());
+                return;
+            }
+            Request request;
+            String response;
+            try {
+                request = new Request(exchange);
+                response = handler.handle(request);
+            } catch (IllegalArgumentException | OWLParserException e) {
+                respond(exchange, 400, "text/plain", e.getMessage());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, "text/plain", "Server in chiusura");
+                return;
+            } catch (TimeoutException e) {
+                respond(exchange, 503, "text/plain", "Nessuna risposta entro " + QUERY_TIMEOUT_SECONDS + " secondi");
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Errore nella richiesta {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+                respond(exchange, 500, "text/plain", "Errore interno del server");
+                return;
+            }
+            respond(exchange, 200, request.json ? JSON : "text/plain", response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Le query di una richiesta sono verificate insieme a quelle delle richieste contemporanee.
+     **/
+    private String subsumption(Request request) throws InterruptedException, TimeoutException {
+        List<String> lines = new ArrayList<>();
+        if (request.jsonBody) {
+            Object value = Json.parse(request.body);
+            if (value instanceof Map) {
+                value = ((Map<?, ?>) value).get("queries");
+            }
+            if (!(value instanceof List)) {
+                throw new IllegalArgumentException("Array di query atteso");
+            }
+            for (Object query : (List<?>) value) {
+                if (!(query instanceof String)) {
+                    throw new IllegalArgumentException("Query non testuale: " + query);
+                }
+                lines.add((String) query);
+            }
+        } else {
+            for (String line : request.body.split("\\R")) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+
+        ManchesterOWLSyntaxClassExpressionParser parser = parser();
+        List<OWLSubClassOfAxiom> queries = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            String[] sides = line.trim().split("\\s+" + SUBCLASS_OF + "\\s+");
+            if (sides.length != 2) {
+                throw new IllegalArgumentException("Query non nella forma C " + SUBCLASS_OF + " D: " + line);
+            }
+            queries.add(this.df.getOWLSubClassOfAxiom(parser.parse(sides[0]), parser.parse(sides[1])));
+        }
+        List<Boolean> results = this.batcher.doQueries(queries);
+
+        StringJoiner response = request.json ? new StringJoiner(",", "{\"results\":[", "]}") : new StringJoiner("\n", "", "\n");
+        for (Boolean result : results) {
+            response.add(result.toString());
+        }
+        return response.toString();
+    }
+
+    private String classification(Request request) {
+        OWLClass c = owlClass(request.parameter("class"));
+        Taxonomy taxonomy = this.reasoner.classify();
+        List<String> equivalent = names(taxonomy.equivalentClasses(c));
+        List<List<String>> superClasses = nodeNames(taxonomy.directSuperClasses(c));
+        List<List<String>> subClasses = nodeNames(taxonomy.directSubClasses(c));
+        if (request.json) {
+            return "{\"class\":" + Json.quote(shortForm(c))
+                    + ",\"equivalent\":" + Json.array(equivalent)
+                    + ",\"superClasses\":" + nodesToJson(superClasses)
+                    + ",\"subClasses\":" + nodesToJson(subClasses) + "}";
+        }
+        return "equivalent: " + String.join(" ", equivalent) + "\n"
+                + "superClasses: " + nodesToText(superClasses) + "\n"
+                + "subClasses: " + nodesToText(subClasses) + "\n";
+    }
+
+    private String instances(Request request) {
+        OWLClass c = owlClass(request.parameter("class"));
+        Realization realization = this.reasoner.realize();
+        return list(request, names(request.flag("direct") ? realization.directInstancesOf(c) : realization.instancesOf(c)));
+    }
+
+    private String types(Request request) {
+        String name = request.parameter("individual");
+        OWLNamedIndividual individual = checker().getOWLIndividual(name);
+        if (individual == null) {
+            throw new IllegalArgumentException("Individuo sconosciuto: " + name);
+        }
+        Realization realization = this.reasoner.realize();
+        Set<OWLClass> types;
+        if (request.flag("direct")) {
+            types = new HashSet<>();
+            realization.directTypes(individual).forEach(types::addAll);
+        } else {
+            types = realization.types(individual);
+        }
+        return list(request, names(types));
+    }
+
+    /**
+     * Il parser e il dizionario dei nomi sono creati per ogni richiesta, così da vedere le entità aggiunte
+     * all'ontologia dopo l'avvio del server.
+     **/
+    private ShortFormEntityChecker checker() {
+        return new ShortFormEntityChecker(new BidirectionalShortFormProviderAdapter(
+                Collections.singleton(this.ontology), this.shortForms));
+    }
+
+    private ManchesterOWLSyntaxClassExpressionParser parser() {
+        return new ManchesterOWLSyntaxClassExpressionParser(this.df, checker());
+    }
+
+    private OWLClass owlClass(String name) {
+        OWLClass c = checker().getOWLClass(name);
+        if (c == null) {
+            throw new IllegalArgumentException("Classe sconosciuta: " + name);
+        }
+        return c;
+    }
+
+    private String shortForm(OWLEntity entity) {
+        return this.shortForms.getShortForm(entity);
+    }
+
+    private List<String> names(Collection<? extends OWLEntity> entities) {
+        List<String> names = new ArrayList<>(entities.size());
+        for (OWLEntity entity : entities) {
+            names.add(shortForm(entity));
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private List<List<String>> nodeNames(Set<Set<OWLClass>> nodes) {
+        List<List<String>> names = new ArrayList<>(nodes.size());
+        for (Set<OWLClass> node : nodes) {
+            names.add(names(node));
+        }
+        names.sort(Comparator.comparing(node -> node.get(0)));
+        return names;
+    }
+
+    private static String nodesToJson(List<List<String>> nodes) {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (List<String> node : nodes) {
+            joiner.add(Json.array(node));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * I nodi sono separati da spazi e le classi equivalenti di uno stesso nodo da '='.
+     **/
+    private static String nodesToText(List<List<String>> nodes) {
+        StringJoiner joiner = new StringJoiner(" ");
+        for (List<String> node : nodes) {
+            joiner.add(String.join("=", node));
+        }
+        return joiner.toString();
+    }
+
+    private static String list(Request request, List<String> names) {
+        if (request.json) {
+            return Json.array(names);
+        }
+        StringBuilder text = new StringBuilder();
+        for (String name : names) {
+            text.append(name).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parameters(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return parameters;
+    }
+}
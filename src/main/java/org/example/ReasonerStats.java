@@ -0,0 +1,279 @@
+package org.example;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiche di un MyReasoner, per fase e per regola di completamento: <br>
+ * - normalizzazione della TBox e delle query: numero, durata e classi temporanee create; <br>
+ * - saturazioni (quella della TBox, quelle delle query e gli aggiornamenti incrementali): numero, durata, elementi estratti
+ * dalla coda di lavoro, turni della saturazione parallela e, per ciascuna regola da CR1 a CR6, applicazioni e derivazioni; <br>
+ * - query: numero, lotti, durata, risposte trovate nella cache e saturazioni interrotte appena derivati gli obiettivi; <br>
+ * - moduli estratti dal reasoner lazy: numero, assiomi della TBox che contengono e moduli trovati nella cache; <br>
+ * - aggiornamenti dopo le modifiche dell'ontologia: numero e durata; <br>
+ * - dimensioni della chiusura della TBox di un reasoner eager: concetti, coppie di S e archi di R; <br>
+ * - memoria conservata tra una query e l'altra: risposte e moduli nelle cache, concetti dei dizionari e classi
+ * temporanee della TBox o dei moduli nella cache, saturazioni delle query non ancora terminate.
+ * <p>
+ * I contatori sono LongAdder, aggiornati una volta per fase e non per derivazione, quindi sia l'aggiornamento da più
+ * thread sia la lettura hanno un costo trascurabile. La lettura di più contatori non è atomica.
+ **/
+public class ReasonerStats implements ReasonerStatsMBean {
+
+    private final LruCache<?, ?> cache;
+    private final LruCache<?, Module> modules;
+    private final LongAdder normalizations = new LongAdder();
+    private final LongAdder normalizationNanos = new LongAdder();
+    private final LongAdder tempClasses = new LongAdder();
+    private final LongAdder saturations = new LongAdder();
+    private final LongAdder saturationNanos = new LongAdder();
+    private final LongAdder worklistSteps = new LongAdder();
+    private final LongAdder parallelRounds = new LongAdder();
+    private final LongAdder[] ruleFirings = newAdders(Saturation.RULES);
+    private final LongAdder[] ruleDerivations = newAdders(Saturation.RULES);
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryBatches = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final LongAdder earlyStops = new LongAdder();
+    private final LongAdder extractedModules = new LongAdder();
+    private final LongAdder moduleAxioms = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder updateNanos = new LongAdder();
+    private volatile long closureConcepts;
+    private volatile long closureSubsumptions;
+    private volatile long closureEdges;
+    private volatile ConceptDictionary dictionary;
+    private volatile TempClassTable tempClassTable;
+    private final LongAdder openQuerySaturations = new LongAdder();
+
+    ReasonerStats(LruCache<?, ?> cache, LruCache<?, Module> modules) {
+        this.cache = cache;
+        this.modules = modules;
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            sums[i] = adders[i].sum();
+        }
+        return sums;
+    }
+
+    void normalized(long nanos, int createdTempClasses) {
+        this.normalizations.increment();
+        this.normalizationNanos.add(nanos);
+        this.tempClasses.add(createdTempClasses);
+    }
+
+    void saturated(long[] firings, long[] derivations, long steps, long rounds, long nanos) {
+        this.saturations.increment();
+        this.saturationNanos.add(nanos);
+        this.worklistSteps.add(steps);
+        this.parallelRounds.add(rounds);
+        for (int r = 0; r < firings.length; r++) {
+            this.ruleFirings[r].add(firings[r]);
+            this.ruleDerivations[r].add(derivations[r]);
+        }
+    }
+
+    void answered(int count, long nanos) {
+        this.queries.add(count);
+        this.queryBatches.increment();
+        this.queryNanos.add(nanos);
+    }
+
+    void stoppedEarly() {
+        this.earlyStops.increment();
+    }
+
+    void extracted(int axioms) {
+        this.extractedModules.increment();
+        this.moduleAxioms.add(axioms);
+    }
+
+    void updated(long nanos) {
+        this.updates.increment();
+        this.updateNanos.add(nanos);
+    }
+
+    /**
+     * Registra il dizionario e la tabella delle classi temporanee della TBox di un reasoner eager, conservati tra una
+     * query e l'altra; quelli di un reasoner lazy sono conservati dai moduli nella cache.
+     **/
+    void retains(ConceptDictionary dictionary, TempClassTable tempClasses) {
+        this.dictionary = dictionary;
+        this.tempClassTable = tempClasses;
+    }
+
+    void querySaturationOpened() {
+        this.openQuerySaturations.increment();
+    }
+
+    void querySaturationClosed() {
+        this.openQuerySaturations.decrement();
+    }
+
+    void closure(long concepts, long subsumptions, long edges) {
+        this.closureConcepts = concepts;
+        this.closureSubsumptions = subsumptions;
+        this.closureEdges = edges;
+    }
+
+    @Override
+    public long getNormalizations() {
+        return this.normalizations.sum();
+    }
+
+    @Override
+    public long getNormalizationNanos() {
+        return this.normalizationNanos.sum();
+    }
+
+    @Override
+    public long getTempClasses() {
+        return this.tempClasses.sum();
+    }
+
+    @Override
+    public long getSaturations() {
+        return this.saturations.sum();
+    }
+
+    @Override
+    public long getSaturationNanos() {
+        return this.saturationNanos.sum();
+    }
+
+    @Override
+    public long getWorklistSteps() {
+        return this.worklistSteps.sum();
+    }
+
+    @Override
+    public long getParallelRounds() {
+        return this.parallelRounds.sum();
+    }
+
+    @Override
+    public long[] getRuleFirings() {
+        return sums(this.ruleFirings);
+    }
+
+    @Override
+    public long[] getRuleDerivations() {
+        return sums(this.ruleDerivations);
+    }
+
+    @Override
+    public long getQueries() {
+        return this.queries.sum();
+    }
+
+    @Override
+    public long getQueryBatches() {
+        return this.queryBatches.sum();
+    }
+
+    @Override
+    public long getQueryNanos() {
+        return this.queryNanos.sum();
+    }
+
+    @Override
+    public long getEarlyStops() {
+        return this.earlyStops.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return this.cache.hits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return this.cache.misses();
+    }
+
+    @Override
+    public long getModules() {
+        return this.extractedModules.sum();
+    }
+
+    @Override
+    public long getModuleAxioms() {
+        return this.moduleAxioms.sum();
+    }
+
+    @Override
+    public long getModuleCacheHits() {
+        return this.modules.hits();
+    }
+
+    @Override
+    public long getModuleCacheMisses() {
+        return this.modules.misses();
+    }
+
+    @Override
+    public long getUpdates() {
+        return this.updates.sum();
+    }
+
+    @Override
+    public long getUpdateNanos() {
+        return this.updateNanos.sum();
+    }
+
+    @Override
+    public long getClosureConcepts() {
+        return this.closureConcepts;
+    }
+
+    @Override
+    public long getClosureSubsumptions() {
+        return this.closureSubsumptions;
+    }
+
+    @Override
+    public long getClosureEdges() {
+        return this.closureEdges;
+    }
+
+    @Override
+    public long getCacheSize() {
+        return this.cache.size();
+    }
+
+    @Override
+    public long getModuleCacheSize() {
+        return this.modules.size();
+    }
+
+    @Override
+    public long getRetainedConcepts() {
+        ConceptDictionary dictionary = this.dictionary;
+        long[] concepts = {dictionary == null ? 0 : dictionary.conceptCount()};
+        this.modules.forEachValue(module -> concepts[0] += module.dictionary.conceptCount());
+        return concepts[0];
+    }
+
+    @Override
+    public long getRetainedTempClasses() {
+        TempClassTable tempClassTable = this.tempClassTable;
+        long[] tempClasses = {tempClassTable == null ? 0 : tempClassTable.size()};
+        this.modules.forEachValue(module -> tempClasses[0] += module.tempClasses.size());
+        return tempClasses[0];
+    }
+
+    @Override
+    public long getOpenQuerySaturations() {
+        return this.openQuerySaturations.sum();
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+/**
+ * Interfaccia JMX delle statistiche di un MyReasoner, registrate con MyReasoner.registerMBean().
+ * I contatori sono cumulativi dalla creazione del reasoner; le durate sono in nanosecondi.
+ * Le statistiche delle regole sono array di sei elementi, da CR1 a CR6.
+ * Le dimensioni (della cache, della cache dei moduli, delle strutture conservate tra una query e l'altra e il numero
+ * di saturazioni delle query in corso) sono invece lette al momento della chiamata.
+ **/
+public interface ReasonerStatsMBean {
+
+    long getNormalizations();
+
+    long getNormalizationNanos();
+
+    long getTempClasses();
+
+    long getSaturations();
+
+    long getSaturationNanos();
+
+    long getWorklistSteps();
+
+    long getParallelRounds();
+
+    long[] getRuleFirings();
+
+    long[] getRuleDerivations();
+
+    long getQueries();
+
+    long getQueryBatches();
+
+    long getQueryNanos();
+
+    long getEarlyStops();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getModules();
+
+    long getModuleAxioms();
+
+    long getModuleCacheHits();
+
+    long getModuleCacheMisses();
+
+    long getUpdates();
+
+    long getUpdateNanos();
+
+    long getClosureConcepts();
+
+    long getClosureSubsumptions();
+
+    long getClosureEdges();
+
+    long getCacheSize();
+
+    long getModuleCacheSize();
+
+    long getRetainedConcepts();
+
+    long getRetainedTempClasses();
+
+    long getOpenQuerySaturations();
+}
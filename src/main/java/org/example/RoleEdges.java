@@ -0,0 +1,129 @@
+package org.example;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Archi di R indicizzati per concetto e per ruolo: per ogni concetto C e ruolo r, l'IntSet dei concetti collegati a C
+ * tramite r, senza creare un oggetto per arco. Una saturazione ne usa due istanze, i successori (indicizzati per il
+ * lato sinistro dell'arco) e i predecessori (indicizzati per il lato destro), così che sia (r, C) → {D | (C, D) ∈ R(r)}
+ * sia (r, D) → {C | (C, D) ∈ R(r)} siano ricerche in tempo costante.
+ * <p>
+ * Le due direzioni sono istanze separate perché nella saturazione parallela i successori di un arco sono registrati dalla
+ * partizione del lato sinistro e i predecessori da quella del lato destro.
+ * <p>
+ * La forma congelata di sola lettura degli stessi archi è FrozenEdges.
+ **/
+final class RoleEdges {
+
+    /**
+     * Azione eseguita da forEach() su ogni arco di un concetto.
+     **/
+    interface Edge {
+        void accept(int relation, int other);
+    }
+
+    private final IntMap<IntMap<IntSet>> edges = new IntMap<>();
+
+    /**
+     * Registra other tra i concetti collegati a key tramite relation.
+     *
+     * @return true se l'arco non era già presente.
+     **/
+    boolean add(int key, int relation, int other) {
+        return this.edges.computeIfAbsent(key, k -> new IntMap<>())
+                .computeIfAbsent(relation, k -> new IntSet())
+                .add(other);
+    }
+
+    boolean contains(int key, int relation, int other) {
+        IntSet others = get(key, relation);
+        return others != null && others.contains(other);
+    }
+
+    /**
+     * @return i concetti collegati a key tramite relation, che non devono essere modificati, oppure null se non ce ne sono.
+     **/
+    IntSet get(int key, int relation) {
+        IntMap<IntSet> byRole = this.edges.get(key);
+        return byRole == null ? null : byRole.get(relation);
+    }
+
+    /**
+     * Esegue action su ogni arco di key, come coppia (ruolo, concetto collegato).
+     **/
+    void forEach(int key, Edge action) {
+        IntMap<IntSet> byRole = this.edges.get(key);
+        if (byRole != null) {
+            byRole.forEach((relation, others) -> others.forEach(other -> action.accept(relation, other)));
+        }
+    }
+
+    /**
+     * Rimuove l'arco tra key e other tramite relation, se presente.
+     **/
+    void remove(int key, int relation, int other) {
+        IntSet others = get(key, relation);
+        if (others != null) {
+            others.remove(other);
+        }
+    }
+
+    /**
+     * Rimuove tutti gli archi di key.
+     **/
+    void remove(int key) {
+        this.edges.remove(key);
+    }
+
+    /**
+     * Aggiunge gli archi dei concetti di other, che non devono avere archi in questo insieme
+     * (ad esempio quelli di una partizione della saturazione parallela).
+     **/
+    void putAll(RoleEdges other) {
+        other.edges.forEach(this.edges::put);
+    }
+
+    /**
+     * @return il numero di archi; il costo è proporzionale al numero di concetti.
+     **/
+    long size() {
+        long[] size = new long[1];
+        this.edges.forEach((key, byRole) -> byRole.forEach((relation, others) -> size[0] += others.size()));
+        return size[0];
+    }
+
+    /**
+     * @return i concetti che hanno almeno un arco, in ordine non specificato.
+     **/
+    int[] keys() {
+        return this.edges.keys();
+    }
+
+    /**
+     * @return gli archi di key indicizzati per ruolo, che non devono essere modificati, oppure null se key non ha archi.
+     **/
+    IntMap<IntSet> edgesOf(int key) {
+        return this.edges.get(key);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(this.edges.size());
+        for (int key : this.edges.keys()) {
+            out.writeInt(key);
+            Saturation.writeSets(out, this.edges.get(key));
+        }
+    }
+
+    /**
+     * Legge gli archi scritti con write().
+     **/
+    void read(Snapshot.Input in) throws IOException {
+        for (int i = in.readLength(); i > 0; i--) {
+            int key = in.readInt();
+            IntMap<IntSet> byRole = new IntMap<>();
+            Saturation.readSets(in, byRole);
+            this.edges.put(key, byRole);
+        }
+    }
+}
@@ -0,0 +1,1372 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stato di una saturazione (gli insiemi S e R) e motore a coda di lavoro che vi applica le regole di completamento CR1-CR6.
+ * <p>
+ * Una saturazione può essere: <br>
+ * - completa: tutti i concetti che compaiono negli assiomi normalizzati sono inizializzati e saturati; <br>
+ * - guidata dall'obiettivo: nessun concetto è inizializzato finché non viene attivato, e vengono saturati solo i concetti
+ * attivati esplicitamente (ad esempio #X di una query e i singleton) e quelli raggiungibili da essi tramite gli archi di R; <br>
+ * - sovrapposta (overlay) ad una saturazione di base già completa, che non viene mai modificata: gli insiemi S(C) della
+ * base sono copiati solo quando ricevono nuove espressioni e vengono considerati solo i concetti raggiungibili
+ * dai concetti attivati esplicitamente (ad esempio #X di una query), così che il lavoro dipenda dalla query e non dall'ontologia.
+ * Una saturazione di base è solo letta dalle saturazioni sovrapposte, che possono quindi essere eseguite in parallelo
+ * su thread diversi, ciascuna confinata al proprio thread.
+ * <p>
+ * Concetti e ruoli sono rappresentati dagli identificativi interi di un ConceptDictionary: S(C) è un IntSet e la coda di
+ * lavoro contiene solo interi. Le espressioni OWL sono tradotte in identificativi solo in activate() e contains().
+ * <p>
+ * Una saturazione completa può essere eseguita in parallelo con saturate(int): i concetti sono ripartiti tra più
+ * partizioni, ciascuna delle quali è l'unica a modificare gli insiemi S(C), i predecessori, i successori e i collegamenti CR6
+ * dei propri concetti. Le derivazioni destinate ai concetti di un'altra partizione vengono inviate come messaggi.
+ * <p>
+ * Una saturazione guidata dall'obiettivo o sovrapposta può osservare degli obiettivi registrati con watch(): la coda di
+ * lavoro viene abbandonata appena ciascuno di essi è stato derivato, dato che le regole sono monotone e una derivazione
+ * resta valida nel punto fisso.
+ * <p>
+ * Ogni saturazione conta, per ciascuna regola, le applicazioni (le conclusioni tentate) e le derivazioni (le conclusioni
+ * nuove), oltre agli elementi estratti dalla coda di lavoro e ai turni della saturazione parallela. I contatori sono
+ * semplici campi confinati al thread della saturazione e vengono trasferiti in un ReasonerStats con reportTo().
+ **/
+class Saturation {
+
+    private static final int THING = ConceptDictionary.THING;
+    private static final int NOTHING = ConceptDictionary.NOTHING;
+    private static final IntSet EMPTY = new IntSet();
+
+    private final ConceptDictionary dictionary;
+    private final Saturation base;
+    private final AxiomIndex index;
+    private final AxiomIndex deltaIndex;
+    private SaturationPlan plan;
+    private IntMap<IntSet> S = new IntMap<>();
+    private FrozenSets frozenS;
+    private RoleEdges successors = new RoleEdges();
+    private RoleEdges predecessors = new RoleEdges();
+    private FrozenEdges frozenSuccessors;
+    private FrozenEdges frozenPredecessors;
+    private final IntMap<IntSet> cr6Links = new IntMap<>();
+    private final IntMap<IntSet> reachable = new IntMap<>();
+    private final IntMap<IntSet> reachedBy = new IntMap<>();
+    private final IntMap<IntSet> nominalsOf = new IntMap<>();
+    private final IntMap<IntSet> conceptsWithNominal = new IntMap<>();
+    private final IntSet active = new IntSet();
+    private final IntQueue todoActivation = new IntQueue();
+    private final IntQueue todoS = new IntQueue();
+    private final IntQueue todoR = new IntQueue();
+
+    //Obiettivi di una saturazione di query: per ogni #X il suo #Y; la saturazione si interrompe quando sono tutti derivati
+    private IntMap<Integer> goals;
+    private int pendingGoals;
+    private boolean stoppedEarly;
+
+    //Stato della saturazione parallela: coordinator e partition sono valorizzati solo nelle partizioni
+    private static final int S_MESSAGE = 0;
+    private static final int EDGE_MESSAGE = 1;
+    private static final int LINK_MESSAGE = 2;
+    private final Saturation coordinator;
+    private final int partition;
+    private Saturation[] partitions;
+    private IntQueue[] outbox;
+    private IntQueue[] inbox;
+    private final IntQueue edgeLog = new IntQueue();
+    private final IntQueue nominalLog = new IntQueue();
+
+    //Contatori: le regole sono indicizzate da CR1 (0) a CR6 (5), rule è la regola che sta producendo le conclusioni
+    static final int RULES = 6;
+    private static final int RULE_CR1 = 0;
+    private static final int RULE_CR2 = 1;
+    private static final int RULE_CR3 = 2;
+    private static final int RULE_CR4 = 3;
+    private static final int RULE_CR5 = 4;
+    private static final int RULE_CR6 = 5;
+    private final long[] firings = new long[RULES];
+    private final long[] derivations = new long[RULES];
+    private long steps;
+    private long rounds;
+    private int rule;
+
+    /**
+     * Crea una saturazione completa: tutti i concetti che compaiono in normalizedAxioms sono inizializzati tramite initializeMapping().
+     *
+     * @param dictionary il dizionario con cui è stato costruito index.
+     * @param normalizedAxioms gli assiomi normalizzati da cui ricavare le chiavi di S.
+     * @param index l'indice degli stessi assiomi su cui applicare le regole di completamento.
+     **/
+    Saturation(ConceptDictionary dictionary, Set<OWLSubClassOfAxiom> normalizedAxioms, AxiomIndex index) {
+        this.dictionary = dictionary;
+        this.base = null;
+        this.index = index;
+        this.deltaIndex = null;
+        this.coordinator = null;
+        this.partition = -1;
+        this.plan = new SaturationPlan(index, dictionary);
+        initializeMapping(normalizedAxioms);
+    }
+
+    /**
+     * Crea una saturazione guidata dall'obiettivo sugli assiomi di index: nessun concetto è attivo finché non viene
+     * chiamato activate(). Le regole CR1-CR5 derivano S(C) solo da S(C) e dagli insiemi dei concetti raggiungibili da C,
+     * mentre CR6 può collegare C ad un concetto raggiungibile da un singleton: attivando anche tutti i singleton con
+     * activateNominals(), i concetti non attivati non possono modificare gli insiemi di quelli attivati, che coincidono
+     * quindi con quelli di una saturazione completa.
+     *
+     * @param dictionary il dizionario con cui è stato costruito index.
+     * @param index l'indice degli assiomi normalizzati su cui applicare le regole di completamento.
+     **/
+    Saturation(ConceptDictionary dictionary, AxiomIndex index) {
+        this.dictionary = dictionary;
+        this.base = null;
+        this.index = index;
+        this.deltaIndex = null;
+        this.coordinator = null;
+        this.partition = -1;
+        this.plan = new SaturationPlan(index, dictionary);
+    }
+
+    /**
+     * Crea una saturazione sovrapposta alla saturazione completa base, con in aggiunta gli assiomi normalizzati deltaAxioms.
+     * I concetti nuovi ricevono identificativi in un dizionario che estende quello della base.
+     * Nessun concetto è attivo finché non viene chiamato activate().
+     *
+     * @param base la saturazione di base, già saturata, che non viene modificata.
+     * @param deltaAxioms gli assiomi normalizzati che si aggiungono a quelli della base (ad esempio gli assiomi fittizi di una query).
+     **/
+    Saturation(Saturation base, Collection<OWLSubClassOfAxiom> deltaAxioms) {
+        this.dictionary = new ConceptDictionary(base.dictionary);
+        this.base = base;
+        this.index = new AxiomIndex(base.index, this.dictionary, deltaAxioms);
+        this.deltaIndex = new AxiomIndex(this.dictionary, deltaAxioms);
+        this.coordinator = null;
+        this.partition = -1;
+        this.plan = new SaturationPlan(this.index, this.dictionary);
+    }
+
+    /**
+     * Ricostruisce una saturazione completa scritta con write(), senza saturarla di nuovo.
+     *
+     * @param dictionary il dizionario letto dallo stesso snapshot, con cui è stato costruito index.
+     * @param index l'indice degli assiomi normalizzati letti dallo stesso snapshot.
+     * @param in il contenuto dello snapshot, posizionato all'inizio dei dati scritti da write().
+     * @throws IOException se il contenuto termina prima dei dati scritti da write() o contiene una lunghezza non valida.
+     **/
+    Saturation(ConceptDictionary dictionary, AxiomIndex index, Snapshot.Input in) throws IOException {
+        this.dictionary = dictionary;
+        this.base = null;
+        this.index = index;
+        this.deltaIndex = null;
+        this.coordinator = null;
+        this.partition = -1;
+        this.plan = new SaturationPlan(index, dictionary);
+        readSets(in, this.S);
+        this.successors.read(in);
+        this.predecessors.read(in);
+        readSets(in, this.cr6Links);
+        readSets(in, this.reachable);
+        readSets(in, this.reachedBy);
+        readSets(in, this.nominalsOf);
+        readSets(in, this.conceptsWithNominal);
+        for (int key : this.S.keys()) {
+            this.active.add(key);
+        }
+    }
+
+    /**
+     * Crea la partizione partition (su partitionCount) della saturazione parallela di coordinator.
+     * La partizione riceve i propri concetti e le derivazioni iniziali da saturate(int).
+     **/
+    private Saturation(Saturation coordinator, int partition, int partitionCount) {
+        this.dictionary = coordinator.dictionary;
+        this.base = null;
+        this.index = coordinator.index;
+        this.deltaIndex = null;
+        this.coordinator = coordinator;
+        this.partition = partition;
+        this.plan = coordinator.plan;
+        this.outbox = newQueues(partitionCount);
+        this.inbox = newQueues(partitionCount + 1); //L'ultima posizione riceve i messaggi del coordinatore
+    }
+
+    /**
+     * Converte una saturazione completa già saturata nella forma congelata: gli insiemi S in un FrozenSets e gli archi di R
+     * in due FrozenEdges, con righe ordinate lette tramite ricerca binaria. Le strutture della regola CR6, usate solo dagli
+     * aggiornamenti, restano modificabili. La saturazione congelata può essere letta e usata come base delle saturazioni
+     * sovrapposte, che ne leggono le righe senza creare oggetti, ma non saturata o aggiornata finché non viene chiamato thaw().
+     **/
+    void freeze() {
+        if (this.frozenS != null) {
+            return;
+        }
+        this.frozenS = new FrozenSets(this.S);
+        this.S = new IntMap<>();
+        this.frozenSuccessors = new FrozenEdges(this.successors);
+        this.successors = new RoleEdges();
+        this.frozenPredecessors = new FrozenEdges(this.predecessors);
+        this.predecessors = new RoleEdges();
+    }
+
+    /**
+     * Ripristina la forma modificabile di una saturazione congelata da freeze().
+     **/
+    void thaw() {
+        if (this.frozenS == null) {
+            return;
+        }
+        this.S = this.frozenS.thaw();
+        this.frozenS = null;
+        this.successors = this.frozenSuccessors.thaw();
+        this.frozenSuccessors = null;
+        this.predecessors = this.frozenPredecessors.thaw();
+        this.frozenPredecessors = null;
+    }
+
+    /**
+     * Scrive su out lo stato di una saturazione completa già saturata: gli insiemi S e R (come successori e predecessori)
+     * e le strutture usate dalla regola CR6, così che la saturazione letta possa anche essere aggiornata come questa.
+     **/
+    void write(DataOutputStream out) throws IOException {
+        if (this.frozenS != null) {
+            this.frozenS.write(out);
+            this.frozenSuccessors.write(out);
+            this.frozenPredecessors.write(out);
+        } else {
+            writeSets(out, this.S);
+            this.successors.write(out);
+            this.predecessors.write(out);
+        }
+        writeSets(out, this.cr6Links);
+        writeSets(out, this.reachable);
+        writeSets(out, this.reachedBy);
+        writeSets(out, this.nominalsOf);
+        writeSets(out, this.conceptsWithNominal);
+    }
+
+    static void writeSets(DataOutputStream out, IntMap<IntSet> sets) throws IOException {
+        out.writeInt(sets.size());
+        for (int key : sets.keys()) {
+            int[] values = sets.get(key).toArray();
+            out.writeInt(key);
+            out.writeInt(values.length);
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    static void readSets(Snapshot.Input in, IntMap<IntSet> sets) throws IOException {
+        for (int i = in.readLength(); i > 0; i--) {
+            int key = in.readInt();
+            IntSet values = new IntSet();
+            for (int j = in.readLength(); j > 0; j--) {
+                values.add(in.readInt());
+            }
+            sets.put(key, values);
+        }
+    }
+
+    private static IntQueue[] newQueues(int count) {
+        IntQueue[] queues = new IntQueue[count];
+        for (int i = 0; i < count; i++) {
+            queues[i] = new IntQueue();
+        }
+        return queues;
+    }
+
+    /**
+     * @return true se expression ∈ S(key), cioè se è stato derivato key ⊑ expression.
+     **/
+    boolean contains(OWLClassExpression key, OWLClassExpression expression) {
+        int keyId = this.dictionary.conceptIdOf(key);
+        int expressionId = this.dictionary.conceptIdOf(expression);
+        if (keyId < 0 || expressionId < 0) {
+            return false;
+        }
+        return containsS(keyId, expressionId);
+    }
+
+    /**
+     * @return S(key), che non deve essere modificato, oppure null se key non è un concetto della saturazione.
+     * Per una saturazione congelata è una copia di S(key).
+     **/
+    IntSet subsumers(int key) {
+        if (this.frozenS != null) {
+            return this.frozenS.copyOf(key);
+        }
+        IntSet own = this.S.get(key);
+        if (own == null && this.base != null) {
+            return this.base.subsumers(key);
+        }
+        return own;
+    }
+
+    /**
+     * Aggiunge a stats i contatori accumulati dall'ultima chiamata e la durata nanos della saturazione, poi li azzera.
+     **/
+    void reportTo(ReasonerStats stats, long nanos) {
+        stats.saturated(this.firings, this.derivations, this.steps, this.rounds, nanos);
+        Arrays.fill(this.firings, 0);
+        Arrays.fill(this.derivations, 0);
+        this.steps = 0;
+        this.rounds = 0;
+    }
+
+    /**
+     * Registra in stats le dimensioni di S e di R; il costo è proporzionale al numero di concetti.
+     **/
+    void reportSizesTo(ReasonerStats stats) {
+        if (this.frozenS != null) {
+            stats.closure(this.frozenS.size(), this.frozenS.valueCount(), this.frozenSuccessors.size());
+            return;
+        }
+        long[] subsumptions = new long[1];
+        this.S.forEach((key, setOfKey) -> subsumptions[0] += setOfKey.size());
+        stats.closure(this.S.size(), subsumptions[0], this.successors.size());
+    }
+
+    /**
+     * I metodi seguenti leggono l'insieme S(key) corrente, cioè quello della base se non è stato modificato.
+     * Una saturazione congelata non ha una base e le sue righe sono lette direttamente, senza creare oggetti.
+     *
+     * @return true se key è un concetto della saturazione o della base.
+     **/
+    private boolean hasS(int key) {
+        if (this.frozenS != null) {
+            return this.frozenS.containsKey(key);
+        }
+        return this.S.containsKey(key) || this.base != null && this.base.hasS(key);
+    }
+
+    /**
+     * @return true se expression ∈ S(key); false anche se key non è un concetto della saturazione.
+     **/
+    private boolean containsS(int key, int expression) {
+        if (this.frozenS != null) {
+            return this.frozenS.contains(key, expression);
+        }
+        IntSet own = this.S.get(key);
+        if (own == null) {
+            return this.base != null && this.base.containsS(key, expression);
+        }
+        return own.contains(expression);
+    }
+
+    private int sizeOfS(int key) {
+        if (this.frozenS != null) {
+            return this.frozenS.size(key);
+        }
+        IntSet own = this.S.get(key);
+        if (own == null) {
+            return this.base != null ? this.base.sizeOfS(key) : 0;
+        }
+        return own.size();
+    }
+
+    /**
+     * @return gli elementi di S(key) in una nuova array, utile per iterare mentre S(key) può essere modificato.
+     **/
+    private int[] arrayOfS(int key) {
+        if (this.frozenS != null) {
+            return this.frozenS.toArray(key);
+        }
+        IntSet own = this.S.get(key);
+        if (own == null) {
+            return this.base != null ? this.base.arrayOfS(key) : new int[0];
+        }
+        return own.toArray();
+    }
+
+    /**
+     * @return una copia modificabile di S(key), che deve essere un concetto della saturazione o della base.
+     **/
+    private IntSet copyOfS(int key) {
+        if (this.frozenS != null) {
+            return this.frozenS.copyOf(key);
+        }
+        IntSet own = this.S.get(key);
+        return own != null ? new IntSet(own) : this.base.copyOfS(key);
+    }
+
+    /**
+     * Esegue action su ogni arco di R uscente da key, come coppia (ruolo, successore), nella saturazione corrente.
+     **/
+    private void forEachSuccessor(int key, RoleEdges.Edge action) {
+        if (this.frozenSuccessors != null) {
+            this.frozenSuccessors.forEach(key, action);
+        } else {
+            this.successors.forEach(key, action);
+        }
+    }
+
+    /**
+     * @return true se (left, right) ∈ R(relation), nella saturazione corrente o nella base.
+     **/
+    private boolean hasEdge(int relation, int left, int right) {
+        if (this.frozenSuccessors != null) {
+            return this.frozenSuccessors.contains(left, relation, right);
+        }
+        if (this.successors.contains(left, relation, right)) {
+            return true;
+        }
+        return this.base != null && this.base.hasEdge(relation, left, right);
+    }
+
+    /**
+     * Applica a entrambe le classi di ciascun OWLSubClassOfAxiom dell'input la funzione initializeSingleMapping()
+     * per memorizzare in this.S i concetti associati.
+     * Tutti i concetti sono attivi e il loro contenuto iniziale viene inserito nella coda di lavoro.
+     * Non apporta nessuna modifica sull'input
+     **/
+    private void initializeMapping(final Set<OWLSubClassOfAxiom> normalizedAxSet) {
+        for (OWLSubClassOfAxiom ax : normalizedAxSet) {
+            OWLClassExpression subClass = ax.getSubClass();
+            OWLClassExpression superClass = ax.getSuperClass();
+            initializeSingleMapping(subClass);
+            initializeSingleMapping(superClass);
+        }
+        this.S.forEach((key, setOfKey) -> {
+            this.active.add(key);
+            setOfKey.forEach(expression -> {
+                this.todoS.add(key);
+                this.todoS.add(expression);
+            });
+        });
+    }
+
+    /**
+     * Inizializza la mappatura dei concetti (S) per una singola espressione di classe OWL.
+     * Se l'espressione è una classe OWL o un è un singleton, viene aggiunta al setS insieme alla classe di massimo livello OWLThing e viene inserita nella mappatura S.
+     * Se l'espressione è un'intersezione di oggetti, le due classi che compongono l'intersezione vengono aggiunte al setS insieme alla classe di massimo livello OWLThing e ciascuna viene inserita nella mappatura S.
+     * Se l'espressione è un'esistenza su valori di oggetto, viene aggiunta al setS la classe o il singleton dell'esistenziale, insieme alla classe di massimo livello OWLThing, quindi viene inserita nella mappatura S.
+     *
+     * @param expression l'espressione di classe OWL da inizializzare.
+     **/
+    private void initializeSingleMapping(final OWLClassExpression expression) {
+        switch (expression.getClassExpressionType()) {
+            case OWL_CLASS:
+            case OBJECT_ONE_OF:
+                initializeNewConcept(this.dictionary.concept(expression));
+                break;
+            case OBJECT_INTERSECTION_OF:
+                OWLObjectIntersectionOf intersectionOf = (OWLObjectIntersectionOf) expression;
+                ArrayList<OWLClassExpression> twoClasses = new ArrayList<>(intersectionOf.getOperandsAsList());
+                initializeNewConcept(this.dictionary.concept(twoClasses.get(0)));
+                initializeNewConcept(this.dictionary.concept(twoClasses.get(1)));
+                break;
+            case OBJECT_SOME_VALUES_FROM:
+                OWLObjectSomeValuesFrom cast = (OWLObjectSomeValuesFrom) expression;
+                // Inserisco nella mappa S la classe (o singleton) dell'esistenziale e il setS creato per essa
+                initializeNewConcept(this.dictionary.concept(cast.getFiller()));
+                break;
+        }
+    }
+
+    private void initializeConcept(int key) {
+        this.S.put(key, IntSet.of(key, THING));
+    }
+
+    private void initializeNewConcept(int key) {
+        if (!this.S.containsKey(key)) {
+            initializeConcept(key);
+        }
+    }
+
+    /**
+     * Attiva il concetto expression, cioè lo include nella saturazione insieme a tutti i concetti da esso raggiungibili.
+     **/
+    void activate(OWLClassExpression expression) {
+        activate(this.dictionary.concept(expression));
+    }
+
+    /**
+     * Attiva tutti i singleton del dizionario, da cui possono partire i percorsi considerati dalla regola CR6.
+     **/
+    void activateNominals() {
+        this.dictionary.forEachNominal(this::activate);
+    }
+
+    /**
+     * Attiva un concetto, cioè lo include nella saturazione insieme a tutti i concetti da esso raggiungibili.
+     * Un concetto che non appartiene alla base viene inizializzato con S(key) = {key, Thing}; un concetto della base
+     * mantiene il proprio S(key) saturato e viene confrontato solo con gli assiomi aggiuntivi.
+     * In una saturazione completa tutti i concetti sono già attivi.
+     **/
+    private void activate(int key) {
+        if (!this.active.add(key)) {
+            return;
+        }
+        if (this.base != null && this.base.hasS(key)) {
+            this.todoActivation.add(key);
+        } else if (!this.S.containsKey(key)) {
+            initializeConcept(key);
+            this.todoS.add(key);
+            this.todoS.add(key);
+            this.todoS.add(key);
+            this.todoS.add(THING);
+        }
+    }
+
+    /**
+     * Registra l'obiettivo target ∈ S(key) (oppure Nothing ∈ S(key)), dopo l'attivazione di key: saturate() si interrompe
+     * appena tutti gli obiettivi registrati sono stati derivati. Gli insiemi S dei concetti diversi dagli obiettivi
+     * restano quindi incompleti e non devono essere letti.
+     **/
+    void watch(OWLClassExpression key, OWLClassExpression target) {
+        if (this.goals == null) {
+            this.goals = new IntMap<>();
+        }
+        int keyId = this.dictionary.conceptIdOf(key);
+        int targetId = this.dictionary.conceptIdOf(target);
+        if (keyId >= 0 && (targetId >= 0 && containsS(keyId, targetId) || containsS(keyId, NOTHING))) {
+            return;
+        }
+        //Un obiettivo su un concetto sconosciuto non può essere derivato e impedisce l'interruzione
+        this.pendingGoals++;
+        if (keyId >= 0 && !this.goals.containsKey(keyId)) {
+            this.goals.put(keyId, targetId);
+        }
+    }
+
+    /**
+     * @return true se l'ultima saturazione è stata interrotta con derivazioni ancora da applicare, perché tutti gli
+     * obiettivi erano già stati derivati.
+     **/
+    boolean stoppedEarly() {
+        return this.stoppedEarly;
+    }
+
+    private boolean goalsReached() {
+        return this.goals != null && this.pendingGoals == 0;
+    }
+
+    /**
+     * Rimuove l'obiettivo di key se expression, appena derivata in S(key), è il suo target oppure Nothing.
+     **/
+    private void checkGoal(int key, int expression) {
+        Integer target = this.goals.get(key);
+        if (target != null && (target == expression || expression == NOTHING)) {
+            this.goals.remove(key);
+            this.pendingGoals--;
+        }
+    }
+
+    /**
+     * Applica le regole di completamento per derivare implicitamente ulteriori assiomi deducibili.
+     * Il metodo utilizza una coda di lavoro (semi-naive): ogni nuova derivazione D ∈ S(C) oppure (C,D) ∈ R(r) viene
+     * inserita in coda una sola volta e, quando estratta, viene confrontata solo con le regole che può attivare.
+     * Anche la regola CR6 è applicata sulla coda: la raggiungibilità tra i concetti e l'indice singleton → concetti sono
+     * aggiornati ad ogni nuovo arco e ad ogni nuovo singleton in S(C), e CR6 crea collegamenti permanenti S(D) ⊆ S(C):
+     * le nuove espressioni di S(D) vengono poi propagate a S(C) direttamente dalla coda.
+     * Il metodo termina quando la coda è vuota, oppure quando sono stati derivati tutti gli obiettivi registrati con watch().
+     **/
+    void saturate() {
+        this.stoppedEarly = false;
+        while (!this.todoActivation.isEmpty() || !this.todoS.isEmpty() || !this.todoR.isEmpty()) {
+            if (goalsReached()) {
+                this.stoppedEarly = true;
+                return;
+            }
+            this.steps++;
+            if (!this.todoActivation.isEmpty()) {
+                processActivation(this.todoActivation.poll());
+            } else if (!this.todoR.isEmpty()) {
+                processEdge(this.todoR.poll(), this.todoR.poll(), this.todoR.poll());
+            } else {
+                processConcept(this.todoS.poll(), this.todoS.poll());
+            }
+        }
+    }
+
+    /**
+     * Come saturate(), ma ripartisce i concetti di una saturazione completa tra threads partizioni elaborate in parallelo.
+     * L'elaborazione procede a turni: in ogni turno ciascuna partizione consuma i messaggi ricevuti e la propria coda di lavoro,
+     * inviando alle altre partizioni le derivazioni D ∈ S(C) e gli archi (C,D) ∈ R(r) che riguardano i loro concetti.
+     * Al termine di ogni turno il coordinatore (questa saturazione) aggiorna la raggiungibilità e l'indice singleton → concetti
+     * con gli archi e i singleton registrati dalle partizioni e invia i collegamenti CR6 creati.
+     * Quando non restano messaggi lo stato delle partizioni viene riunito in questa saturazione, che coincide
+     * con quella ottenuta da saturate(), dato che le regole sono monotone e il punto fisso è unico.
+     * Gli obiettivi registrati con watch() sono verificati al termine di ogni turno.
+     *
+     * @param threads il numero di partizioni e di thread; con threads ≤ 1, o per una saturazione sovrapposta, equivale a saturate().
+     **/
+    void saturate(int threads) {
+        if (threads <= 1 || this.base != null) {
+            saturate();
+            return;
+        }
+        this.stoppedEarly = false;
+        Saturation[] parts = new Saturation[threads];
+        for (int p = 0; p < threads; p++) {
+            parts[p] = new Saturation(this, p, threads);
+        }
+        this.S.forEach((key, setOfKey) -> {
+            parts[key % threads].S.put(key, setOfKey);
+            parts[key % threads].active.add(key);
+        });
+        while (!this.todoS.isEmpty()) {
+            int key = this.todoS.poll();
+            int expression = this.todoS.poll();
+            parts[key % threads].todoS.add(key);
+            parts[key % threads].todoS.add(expression);
+        }
+        this.partitions = parts;
+        this.outbox = newQueues(threads);
+
+        List<Callable<Void>> rounds = new ArrayList<>();
+        for (Saturation part : parts) {
+            rounds.add(part::saturatePartition);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            do {
+                this.rounds++;
+                for (Future<Void> round : executor.invokeAll(rounds)) {
+                    round.get();
+                }
+                for (Saturation part : parts) {
+                    while (!part.edgeLog.isEmpty()) {
+                        addReachability(part.edgeLog.poll(), part.edgeLog.poll());
+                    }
+                    while (!part.nominalLog.isEmpty()) {
+                        addNominal(part.nominalLog.poll(), part.nominalLog.poll());
+                    }
+                }
+                if (this.goals != null && goalsReached(parts)) {
+                    //I messaggi consegnati sono scartati: la consegna indica solo se il punto fisso non era stato raggiunto
+                    this.stoppedEarly = deliverMessages();
+                    break;
+                }
+            } while (deliverMessages());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Saturazione parallela interrotta", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Saturazione parallela fallita", e.getCause());
+        } finally {
+            executor.shutdown();
+            this.partitions = null;
+            this.outbox = null;
+        }
+
+        for (Saturation part : parts) {
+            part.S.forEach(this.S::put);
+            this.successors.putAll(part.successors);
+            this.predecessors.putAll(part.predecessors);
+            for (int r = 0; r < RULES; r++) {
+                this.firings[r] += part.firings[r];
+                this.derivations[r] += part.derivations[r];
+            }
+            this.steps += part.steps;
+        }
+    }
+
+    /**
+     * Rimuove gli obiettivi già derivati negli insiemi S delle partizioni.
+     *
+     * @return true se tutti gli obiettivi sono stati derivati.
+     **/
+    private boolean goalsReached(Saturation[] parts) {
+        for (int key : this.goals.keys()) {
+            IntSet setOfKey = parts[key % parts.length].S.get(key);
+            if (setOfKey != null) {
+                if (setOfKey.contains(this.goals.get(key))) {
+                    checkGoal(key, this.goals.get(key));
+                } else if (setOfKey.contains(NOTHING)) {
+                    checkGoal(key, NOTHING);
+                }
+            }
+        }
+        return goalsReached();
+    }
+
+    /**
+     * Un turno di una partizione: consuma i messaggi ricevuti e satura la propria coda di lavoro.
+     **/
+    private Void saturatePartition() {
+        for (IntQueue messages : this.inbox) {
+            while (!messages.isEmpty()) {
+                switch (messages.poll()) {
+                    case S_MESSAGE:
+                        int key = messages.poll();
+                        int expression = messages.poll();
+                        this.rule = messages.poll();
+                        addToS(key, expression);
+                        break;
+                    case EDGE_MESSAGE:
+                        this.todoR.add(messages.poll());
+                        this.todoR.add(messages.poll());
+                        this.todoR.add(messages.poll());
+                        break;
+                    case LINK_MESSAGE:
+                        link(messages.poll(), messages.poll());
+                        break;
+                }
+            }
+        }
+        saturate();
+        return null;
+    }
+
+    /**
+     * Consegna ai destinatari i messaggi inviati durante l'ultimo turno dalle partizioni e dal coordinatore.
+     *
+     * @return true se almeno un messaggio è stato consegnato.
+     **/
+    private boolean deliverMessages() {
+        boolean delivered = false;
+        for (Saturation target : this.partitions) {
+            for (int source = 0; source <= this.partitions.length; source++) {
+                IntQueue[] sourceOutbox = source < this.partitions.length ? this.partitions[source].outbox : this.outbox;
+                IntQueue messages = sourceOutbox[target.partition];
+                if (!messages.isEmpty()) {
+                    //La coda di ricezione è stata svuotata nel turno precedente: le due code vengono scambiate
+                    sourceOutbox[target.partition] = target.inbox[source];
+                    target.inbox[source] = messages;
+                    delivered = true;
+                }
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * @return true se key deve essere elaborato altrove: in una partizione, se appartiene ad un'altra partizione; nel
+     * coordinatore di una saturazione parallela in corso, sempre.
+     **/
+    private boolean isRemote(int key) {
+        return this.outbox != null && (this.coordinator == null || key % this.outbox.length != this.partition);
+    }
+
+    /**
+     * Invia alla partizione di key un messaggio di tipo type con i valori indicati.
+     **/
+    private void send(int key, int type, int first, int second) {
+        IntQueue messages = this.outbox[key % this.outbox.length];
+        messages.add(type);
+        messages.add(first);
+        messages.add(second);
+    }
+
+    private void send(int key, int type, int first, int second, int third) {
+        send(key, type, first, second);
+        this.outbox[key % this.outbox.length].add(third);
+    }
+
+    /**
+     * Aggiunge expression a S(key) e, se non era già presente, inserisce la nuova derivazione nella coda di lavoro.
+     * Se S(key) appartiene alla base, viene prima copiato nella saturazione corrente.
+     **/
+    private void addToS(int key, int expression) {
+        if (isRemote(key)) {
+            send(key, S_MESSAGE, key, expression, this.rule); //La conclusione viene contata dalla partizione di key
+            return;
+        }
+        this.firings[this.rule]++;
+        IntSet own = this.S.get(key);
+        if (own == null) {
+            if (this.base.containsS(key, expression)) {
+                return;
+            }
+            own = this.base.copyOfS(key);
+            this.S.put(key, own);
+        }
+        if (own.add(expression)) {
+            this.derivations[this.rule]++;
+            this.todoS.add(key);
+            this.todoS.add(expression);
+            if (this.goals != null) {
+                checkGoal(key, expression);
+            }
+        }
+    }
+
+    /**
+     * Aggiunge la coppia (left, right) a R(relation) e, se non era già presente (neanche nella base), la registra
+     * tra i successori di left e inserisce il nuovo arco nella coda di lavoro.
+     **/
+    private void addToR(int relation, int left, int right) {
+        this.firings[this.rule]++;
+        if (hasEdge(relation, left, right)) {
+            return;
+        }
+        this.derivations[this.rule]++;
+        addSuccessor(relation, left, right);
+        if (isRemote(right)) {
+            //L'arco viene elaborato dalla partizione di right, che ne registra i predecessori
+            send(right, EDGE_MESSAGE, relation, left, right);
+            return;
+        }
+        this.todoR.add(relation);
+        this.todoR.add(left);
+        this.todoR.add(right);
+    }
+
+    private void addSuccessor(int relation, int left, int right) {
+        this.successors.add(left, relation, right);
+    }
+
+    private void addPredecessor(int relation, int left, int right) {
+        this.predecessors.add(right, relation, left);
+    }
+
+    /**
+     * Elabora l'attivazione di un concetto key della base: registra e attiva i suoi successori nella base e applica a
+     * S(key) solo gli assiomi aggiuntivi, dato che quelli della base sono già stati applicati durante la sua saturazione.
+     * Se un successore ha già ricevuto nuove espressioni, l'arco verso di esso viene confrontato con tutti gli assiomi.
+     **/
+    private void processActivation(int key) {
+        this.base.forEachSuccessor(key, (relation, successor) -> {
+            addSuccessor(relation, key, successor);
+            addPredecessor(relation, key, successor);
+            if (this.plan.propagatesAlong(relation)) {
+                activate(successor);
+                applyExistentials(relation, key, successor, this.S.containsKey(successor) ? this.index : this.deltaIndex);
+                addReachability(key, successor);
+            }
+        });
+        IntSet baseNominals = this.base.nominalsOf.get(key);
+        if (baseNominals != null) {
+            baseNominals.forEach(nominal -> addNominal(key, nominal));
+        }
+
+        applyAxioms(key, this.base, this.deltaIndex);
+    }
+
+    /**
+     * Applica CR1, CR2 e CR3 con i soli assiomi di axioms alle espressioni già presenti in S(key) di sets.
+     **/
+    private void applyAxioms(int key, Saturation sets, AxiomIndex axioms) {
+        for (int expression : axioms.atomicSubClasses()) {
+            if (sets.containsS(key, expression)) {
+                CR1(key, expression, axioms);
+                CR3(key, expression, axioms);
+            }
+        }
+        for (int expression : axioms.conjuncts()) {
+            if (sets.containsS(key, expression)) {
+                CR2(key, expression, axioms);
+            }
+        }
+    }
+
+    /**
+     * Aggiorna una saturazione completa già saturata dopo l'aggiunta degli assiomi normalizzati addedAxioms, che devono
+     * essere già stati inseriti nel suo indice. Le espressioni già presenti in S e gli archi già presenti in R sono
+     * confrontati solo con i nuovi assiomi, i nuovi concetti sono inizializzati e le nuove derivazioni sono poi
+     * saturate con tutti gli assiomi, come in saturate(). Una saturazione congelata viene prima scongelata.
+     **/
+    void addAxioms(Collection<OWLSubClassOfAxiom> addedAxioms) {
+        thaw();
+        AxiomIndex added = new AxiomIndex(this.dictionary, addedAxioms);
+        int[] roles = added.existentialRoles();
+        int[] keys = this.S.keys();
+        //I nuovi concetti sono inizializzati prima, dato che i nuovi archi possono raggiungerli
+        for (OWLSubClassOfAxiom ax : addedAxioms) {
+            initializeSingleMapping(ax.getSubClass());
+            initializeSingleMapping(ax.getSuperClass());
+        }
+        //Senza singleton nessun concetto è sorgente della raggiungibilità: i nuovi la calcolano in addNominal() dagli archi già registrati
+        this.plan = new SaturationPlan(this.index, this.dictionary);
+        this.S.forEach((key, setOfKey) -> {
+            if (this.active.add(key)) {
+                this.todoS.add(key);
+                this.todoS.add(key);
+                this.todoS.add(key);
+                this.todoS.add(THING);
+            }
+        });
+        for (int key : keys) {
+            applyAxioms(key, this, added);
+            for (int relation : roles) {
+                IntSet rights = this.successors.get(key, relation);
+                if (rights != null) {
+                    for (int right : rights.toArray()) {
+                        applyExistentials(relation, key, right, added);
+                    }
+                }
+            }
+        }
+        saturate();
+    }
+
+    /**
+     * Aggiorna una saturazione completa già saturata dopo la rimozione degli assiomi normalizzati removedAxioms, che devono
+     * essere già stati rimossi dal suo indice, con un approccio over-delete / re-derive (DRed) per concetti: <br>
+     * - sono individuati i concetti C in cui uno degli assiomi rimossi può essere stato applicato, insieme a tutti i concetti
+     * che dipendono da essi tramite gli archi di R (i predecessori) o i collegamenti CR6; <br>
+     * - per questi concetti S(C), gli archi uscenti, la raggiungibilità e i collegamenti CR6 vengono cancellati; <br>
+     * - S(C) viene reinizializzato a {C, Thing} e saturato di nuovo, riusando gli insiemi S dei concetti non coinvolti,
+     * che non dipendono in alcun modo dai concetti cancellati e restano quindi validi.
+     * Una saturazione congelata viene prima scongelata.
+     **/
+    void removeAxioms(Collection<OWLSubClassOfAxiom> removedAxioms) {
+        thaw();
+        this.plan = new SaturationPlan(this.index, this.dictionary);
+        AxiomIndex removed = new AxiomIndex(this.dictionary, removedAxioms);
+        IntSet affected = new IntSet();
+        IntQueue toVisit = new IntQueue();
+        for (int key : this.S.keys()) {
+            if (usesAxioms(key, removed) && affected.add(key)) {
+                toVisit.add(key);
+            }
+        }
+        while (!toVisit.isEmpty()) {
+            int key = toVisit.poll();
+            this.predecessors.forEach(key, (relation, left) -> {
+                if (affected.add(left)) {
+                    toVisit.add(left);
+                }
+            });
+            IntSet linked = this.cr6Links.get(key);
+            if (linked != null) {
+                linked.forEach(key1 -> {
+                    if (affected.add(key1)) {
+                        toVisit.add(key1);
+                    }
+                });
+            }
+        }
+        affected.forEach(this::clear);
+        saturate();
+    }
+
+    /**
+     * @return true se almeno un assioma di axioms può essere stato applicato a key: il suo lato sinistro atomico o
+     * entrambi i congiunti appartengono a S(key), oppure il filler del suo lato sinistro esistenziale appartiene a S(D)
+     * per un arco (key, D) con lo stesso ruolo.
+     **/
+    private boolean usesAxioms(int key, AxiomIndex axioms) {
+        IntSet setOfKey = this.S.get(key);
+        for (int expression : axioms.atomicSubClasses()) {
+            if (setOfKey.contains(expression)) {
+                return true;
+            }
+        }
+        for (int expression : axioms.conjuncts()) {
+            if (setOfKey.contains(expression)) {
+                for (int other : axioms.conjunctionsWith(expression).keys()) {
+                    if (setOfKey.contains(other)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (int relation : axioms.existentialRoles()) {
+            IntSet rights = this.successors.get(key, relation);
+            if (rights == null) {
+                continue;
+            }
+            int[] fillers = axioms.existentialsOn(relation).keys();
+            for (int right : rights.toArray()) {
+                IntSet setOfRight = this.S.get(right);
+                for (int filler : fillers) {
+                    if (setOfRight.contains(filler)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancella tutto ciò che è stato derivato per key (S(key), gli archi uscenti, la raggiungibilità, i singleton e i
+     * collegamenti CR6 in cui key riceve le espressioni) e reinserisce key nella coda di lavoro con S(key) = {key, Thing}.
+     * I predecessori di key e i concetti che raggiungono key devono essere cancellati anch'essi.
+     **/
+    private void clear(int key) {
+        this.successors.forEach(key, (relation, right) -> this.predecessors.remove(right, relation, key));
+        this.successors.remove(key);
+        this.predecessors.remove(key);
+        IntSet reachableFromKey = this.reachable.remove(key);
+        if (reachableFromKey != null) {
+            reachableFromKey.forEach(target -> {
+                this.reachedBy.getOrDefault(target, EMPTY).remove(key);
+                this.cr6Links.getOrDefault(target, EMPTY).remove(key);
+            });
+        }
+        this.reachedBy.remove(key);
+        this.cr6Links.remove(key);
+        IntSet nominalsOfKey = this.nominalsOf.remove(key);
+        if (nominalsOfKey != null) {
+            nominalsOfKey.forEach(nominal -> this.conceptsWithNominal.get(nominal).remove(key));
+        }
+        initializeConcept(key);
+        this.todoS.add(key);
+        this.todoS.add(key);
+        this.todoS.add(key);
+        this.todoS.add(THING);
+    }
+
+    /**
+     * Elabora la derivazione expression ∈ S(key) applicando le sole regole che essa può attivare secondo il piano:
+     * CR1, CR2 e CR3 su key, CR4 sui predecessori di key lungo i ruoli r con un assioma ∃r.expression ⊑ E, CR5 su tutti
+     * i predecessori di key se expression è Nothing, e la propagazione lungo i collegamenti CR6 già creati.
+     **/
+    private void processConcept(int key, int expression) {
+        CR1(key, expression, this.index);
+        if (this.plan.conjunctions) {
+            CR2(key, expression, this.index);
+        }
+        if (this.plan.existentialSuperClasses) {
+            CR3(key, expression, this.index);
+        }
+
+        if (expression == NOTHING) {
+            this.predecessors.forEach(key, (relation, predecessor) -> {
+                CR4(relation, predecessor, expression);
+                CR5(predecessor, expression);
+            });
+        } else {
+            for (int relation : this.plan.rolesWithFiller(expression)) {
+                IntSet predecessorsOnRelation = this.predecessors.get(key, relation);
+                if (predecessorsOnRelation != null) {
+                    predecessorsOnRelation.forEach(predecessor -> CR4(relation, predecessor, expression));
+                }
+            }
+        }
+
+        if (this.plan.nominals) {
+            IntSet linked = this.cr6Links.get(key);
+            if (linked != null) {
+                this.rule = RULE_CR6;
+                linked.forEach(key1 -> addToS(key1, expression));
+            }
+            if (this.dictionary.isNominal(expression)) {
+                addNominal(key, expression);
+            }
+        }
+    }
+
+    /**
+     * Elabora il nuovo arco (left, right) ∈ R(relation): lo registra tra i predecessori di right e, se il piano prevede
+     * che l'arco possa modificare S(left), attiva right e applica CR4 e CR5 confrontandolo con tutte le espressioni già
+     * presenti in S(right).
+     **/
+    private void processEdge(int relation, int left, int right) {
+        addPredecessor(relation, left, right);
+        if (!this.plan.propagatesAlong(relation)) {
+            return; //S(right) non può modificare S(left): right non viene attivato
+        }
+        activate(right);
+        applyExistentials(relation, left, right, this.index);
+        addReachability(left, right);
+    }
+
+    /**
+     * Aggiorna la raggiungibilità dopo il nuovo arco (left, right) ∈ R(r). La chiusura transitiva degli archi è mantenuta
+     * solo a partire dai concetti con almeno un singleton in S, gli unici che possono attivare CR6: ogni tale concetto
+     * che raggiunge left (left compreso) raggiunge ora right e tutti i concetti raggiungibili da right.
+     * Per ogni nuova coppia raggiungibile viene verificata la regola CR6.
+     **/
+    private void addReachability(int left, int right) {
+        if (!this.plan.nominals) {
+            return;
+        }
+        if (this.coordinator != null) {
+            this.edgeLog.add(left);
+            this.edgeLog.add(right);
+            return;
+        }
+        IntSet reachingLeft = this.reachedBy.get(left);
+        int[] targets = null;
+        if (this.nominalsOf.containsKey(left)) {
+            targets = addReachableFrom(left, right, targets);
+        }
+        if (reachingLeft != null) {
+            for (int source : reachingLeft.toArray()) {
+                targets = addReachableFrom(source, right, targets);
+            }
+        }
+    }
+
+    /**
+     * Rende right e i concetti raggiungibili da right raggiungibili da source. I concetti raggiungibili da right sono
+     * calcolati alla prima sorgente che ne ha bisogno e riutilizzati per le successive.
+     *
+     * @return i concetti raggiungibili da right (right compreso), oppure targets se non è stato necessario calcolarli.
+     **/
+    private int[] addReachableFrom(int source, int right, int[] targets) {
+        if (this.reachable.getOrDefault(source, EMPTY).contains(right)) {
+            return targets; //La chiusura di source contiene già tutti i concetti raggiungibili da right
+        }
+        if (targets == null) {
+            IntSet fromRight = reachableFrom(right);
+            fromRight.add(right);
+            targets = fromRight.toArray();
+        }
+        for (int target : targets) {
+            addReachable(source, target);
+        }
+        return targets;
+    }
+
+    private void addReachable(int source, int target) {
+        if (this.reachable.computeIfAbsent(source, k -> new IntSet()).add(target)) {
+            this.reachedBy.computeIfAbsent(target, k -> new IntSet()).add(source);
+            CR6(source, target);
+        }
+    }
+
+    /**
+     * @return i concetti raggiungibili da start tramite almeno un arco di R già registrato, calcolati con una visita in ampiezza.
+     **/
+    private IntSet reachableFrom(int start) {
+        IntSet visited = new IntSet();
+        IntQueue toVisit = new IntQueue();
+        toVisit.add(start);
+        while (!toVisit.isEmpty()) {
+            int key = toVisit.poll();
+            successorsOf(key).forEach(key, (relation, right) -> {
+                if (visited.add(right)) {
+                    toVisit.add(right);
+                }
+            });
+        }
+        return visited;
+    }
+
+    /**
+     * @return gli archi che contengono i successori di key; durante una saturazione parallela sono quelli della partizione di key.
+     **/
+    private RoleEdges successorsOf(int key) {
+        if (this.partitions != null) {
+            return this.partitions[key % this.partitions.length].successors;
+        }
+        return this.successors;
+    }
+
+    /**
+     * Registra il singleton nominal ∈ S(key) nell'indice singleton → concetti e verifica la regola CR6 tra key e i concetti
+     * che contengono lo stesso singleton e che raggiungono key o sono raggiungibili da key.
+     * Al primo singleton key diventa una sorgente della raggiungibilità.
+     * Viene scorso il più piccolo tra l'insieme dei concetti con il singleton e quello dei concetti collegati a key.
+     **/
+    private void addNominal(int key, int nominal) {
+        if (this.coordinator != null) {
+            this.nominalLog.add(key);
+            this.nominalLog.add(nominal);
+            return;
+        }
+        IntSet nominalsOfKey = this.nominalsOf.get(key);
+        if (nominalsOfKey == null) {
+            //key diventa una sorgente della raggiungibilità: calcolo i concetti che raggiunge con gli archi già registrati
+            nominalsOfKey = IntSet.of(nominal);
+            this.nominalsOf.put(key, nominalsOfKey);
+            for (int target : reachableFrom(key).toArray()) {
+                addReachable(key, target);
+            }
+        } else if (!nominalsOfKey.add(nominal)) {
+            return;
+        }
+        IntSet withNominal = this.conceptsWithNominal.computeIfAbsent(nominal, k -> new IntSet());
+        withNominal.add(key);
+        IntSet reachableFromKey = this.reachable.getOrDefault(key, EMPTY);
+        IntSet reachingKey = this.reachedBy.getOrDefault(key, EMPTY);
+        if (withNominal.size() <= reachableFromKey.size() + reachingKey.size()) {
+            for (int other : withNominal.toArray()) {
+                if (reachableFromKey.contains(other)) {
+                    CR6(key, other);
+                }
+                if (reachingKey.contains(other)) {
+                    CR6(other, key);
+                }
+            }
+        } else {
+            for (int other : reachableFromKey.toArray()) {
+                if (withNominal.contains(other)) {
+                    CR6(key, other);
+                }
+            }
+            for (int other : reachingKey.toArray()) {
+                if (withNominal.contains(other)) {
+                    CR6(other, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applica CR4 e CR5 all'arco (left, right) ∈ R(relation) per tutte le espressioni già presenti in S(right),
+     * considerando gli assiomi con lato sinistro esistenziale presenti in existentialIndex.
+     * Viene scorso il più piccolo tra S(right) e l'insieme dei filler degli esistenziali su relation, cercando gli
+     * elementi nell'altro.
+     **/
+    private void applyExistentials(int relation, int left, int right, AxiomIndex existentialIndex) {
+        IntMap<int[]> existentials = existentialIndex.existentialsOn(relation);
+        this.rule = RULE_CR4;
+        if (sizeOfS(right) < existentials.size()) {
+            //S(right) può crescere durante la scansione se left = right
+            for (int expression : arrayOfS(right)) {
+                int[] superClasses = existentials.get(expression);
+                if (superClasses != null) {
+                    for (int superClass : superClasses) {
+                        addToS(left, superClass);
+                    }
+                }
+            }
+        } else {
+            existentials.forEach((filler, superClasses) -> {
+                if (containsS(right, filler)) { //Verifico che K appartenga a S(D)
+                    for (int superClass : superClasses) {
+                        addToS(left, superClass); //Aggiungo a S(C) E
+                    }
+                }
+            });
+        }
+        if (this.plan.bottom && containsS(right, NOTHING)) {
+            CR5(left, NOTHING);
+        }
+    }
+
+    /**
+     * Applica la regola di completamento CR1 per l'aggiunta di nuove espressioni di classe all'insieme S(C) per una data espressione di classe C.
+     * La regola controlla se è possibile aggiungere nuove espressioni di classe C' all'insieme S(C) in base alle sottoclassi dirette nell'ontologia.
+     * Viene esclusa l'aggiunta di espressioni di classe specificate tramite restrizioni.
+     *
+     * @param key L'espressione di classe C su cui applicare la regola di completamento.
+     * @param expression L'espressione di classe C' appena derivata in S(C).
+     * @param index L'indice degli assiomi di sottoclasse su cui basare il completamento.
+     **/
+    private void CR1(int key, int expression, AxiomIndex index) {
+        this.rule = RULE_CR1;
+        for (int superClass : index.superClassesOf(expression)) { //Solo gli assiomi C' ⊑ E con E non esistenziale
+            addToS(key, superClass);
+        }
+    }
+
+    /**
+     * Applica la regola di completamento CR2 per l'aggiunta di nuove espressioni di classe all'insieme S(C) per una data espressione di classe C.
+     * La regola controlla la possibilità di creare intersezioni tra l'espressione appena derivata e quelle già presenti in S(C) e aggiungere le espressioni di classe risultanti all'insieme.
+     * Viene esclusa l'aggiunta di espressioni di classe specificate tramite restrizioni.
+     *
+     * @param key L'espressione di classe C su cui applicare la regola di completamento.
+     * @param expression L'espressione di classe C1 appena derivata in S(C).
+     * @param index L'indice degli assiomi di sottoclasse su cui basare il completamento.
+     **/
+    private void CR2(int key, int expression, AxiomIndex index) {
+        this.rule = RULE_CR2;
+        //Solo gli assiomi C1 ⊓ C2 ⊑ E: basta verificare che anche C2 appartenga ad S(C)
+        index.conjunctionsWith(expression).forEach((other, superClasses) -> {
+            if (containsS(key, other)) {
+                for (int superClass : superClasses) {
+                    addToS(key, superClass);
+                }
+            }
+        });
+    }
+
+    /**
+     * Applica la regola di completamento CR3 per l'aggiunta di nuove coppie di espressioni di classe e filler all'insieme R per una data espressione di classe C.
+     * La regola controlla se l'espressione appena derivata in S(C) corrisponde alla classe soggetto di un'espressione di valore esistenziale.
+     * In tal caso, viene aggiunta una nuova coppia (espressione di classe, filler) all'insieme R corrispondente alla proprietà dell'espressione di valore esistenziale.
+     *
+     * @param key L'espressione di classe C su cui applicare la regola di completamento.
+     * @param expression L'espressione di classe C' appena derivata in S(C).
+     * @param index L'indice degli assiomi di sottoclasse su cui basare il completamento.
+     **/
+    private void CR3(int key, int expression, AxiomIndex index) {
+        this.rule = RULE_CR3;
+        int[] existentials = index.existentialSuperClassesOf(expression); //Solo gli assiomi C' ⊑ ∃r.E, come coppie (r, E)
+        for (int i = 0; i < existentials.length; i += 2) {
+            addToR(existentials[i], key, existentials[i + 1]);
+        }
+    }
+
+    /**
+     * Applica la regola di completamento CR4 per l'aggiunta di nuove espressioni di classe all'insieme S(C) per una coppia (C, D) di R(r).
+     * La regola controlla se l'espressione D' appena derivata in S(D) è il filler di un'espressione di valore esistenziale avente come proprietà r
+     * che compare come sotto-classe di una sussunzione. In tal caso, viene aggiunta a S(C) la super-classe della sussunzione.
+     *
+     * @param key L'espressione di proprietà r della coppia (C, D).
+     * @param leftOfPair L'espressione di classe C, predecessore di D tramite r.
+     * @param expression L'espressione di classe D' appena derivata in S(D).
+     **/
+    private void CR4(int key, int leftOfPair, int expression){
+        this.rule = RULE_CR4;
+        int[] superClasses = this.index.existentialsOn(key).get(expression); //Solo gli assiomi ∃r.D' ⊑ E
+        if (superClasses != null) {
+            for (int superClass : superClasses) {
+                addToS(leftOfPair, superClass); //Aggiungo a S(C) E
+            }
+        }
+    }
+
+    /**
+     * Applica la regola di completamento CR5 per l'aggiunta del concetto di Bottom all'insieme S(C) per una coppia (C, D) di R(r).
+     * La regola verifica se l'espressione D' appena derivata in S(D) corrisponde al concetto di Bottom.
+     * In tal caso, viene aggiunto il concetto di Bottom all'insieme S(C) corrispondente alla classe soggetto della coppia.
+     *
+     * @param leftOfPair L'espressione di classe C, predecessore di D.
+     * @param expression L'espressione di classe D' appena derivata in S(D).
+     **/
+    private void CR5(int leftOfPair, int expression){
+        if(expression == NOTHING){ //Verifico se l'espressione è il Bottom
+            this.rule = RULE_CR5;
+            addToS(leftOfPair, NOTHING); //Aggiungo a S(C) il Bottom
+        }
+    }
+
+    /**
+     * Crea il collegamento S(key2) ⊆ S(key1) e aggiunge a S(key1) tutte le espressioni già presenti in S(key2).
+     **/
+    private void link(int key1, int key2) {
+        this.rule = RULE_CR6;
+        this.cr6Links.computeIfAbsent(key2, k -> new IntSet()).add(key1);
+        for (int expressionOfKey2 : arrayOfS(key2)) {
+            addToS(key1, expressionOfKey2);
+        }
+    }
+
+    /**
+     * Applica la regola di completamento CR6 per l'aggiunta di espressioni di classe all'insieme S(C) per due dati concetti.
+     * La regola viene verificata solo per le coppie in cui key2 è raggiungibile da key1 tramite gli archi di R: controlla che
+     * S(key1) e S(key2) abbiano in comune un singleton e in tal caso crea il collegamento S(key2) ⊆ S(key1) e aggiunge tutte
+     * le espressioni di classe di key2 all'insieme S(key1): le espressioni derivate in seguito in S(key2) saranno
+     * propagate a S(key1) dalla coda di lavoro.
+     *
+     * @param key1 Il concetto per il quale applicare la regola di completamento CR6.
+     * @param key2 Il concetto, raggiungibile da key1, da cui aggiungere le espressioni di classe all'insieme S(key1).
+     * @return true se è stato creato un nuovo collegamento tra key2 e key1, altrimenti false.
+     **/
+    private boolean CR6(int key1, int key2){
+        if(key1 != key2 && key1 != NOTHING){
+            IntSet linkedToKey2 = this.cr6Links.get(key2);
+            if (linkedToKey2 != null && linkedToKey2.contains(key1)) {
+                return false;
+            }
+            IntSet nominalsOfKey1 = this.nominalsOf.get(key1);
+            IntSet nominalsOfKey2 = this.nominalsOf.get(key2);
+            if (nominalsOfKey1 == null || nominalsOfKey2 == null) {
+                return false;
+            }
+            //Basta scorrere l'insieme più piccolo per cercare un singleton comune
+            IntSet smaller = nominalsOfKey1.size() <= nominalsOfKey2.size() ? nominalsOfKey1 : nominalsOfKey2;
+            IntSet larger = smaller == nominalsOfKey1 ? nominalsOfKey2 : nominalsOfKey1;
+
+            for(int nominal : smaller.toArray()){
+                if(larger.contains(nominal)){
+                    if (isRemote(key2)) {
+                        //Il collegamento è registrato anche dalla partizione di key2, che vi propagherà le nuove espressioni
+                        this.cr6Links.computeIfAbsent(key2, k -> new IntSet()).add(key1);
+                        send(key2, LINK_MESSAGE, key1, key2);
+                    } else {
+                        link(key1, key2);
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example;
+
+/**
+ * Piano di una saturazione, compilato una volta dal profilo degli assiomi normalizzati di un AxiomIndex e dai concetti
+ * del suo ConceptDictionary: indica quali regole di completamento possono produrre conclusioni e su quali ruoli, così
+ * che la coda di lavoro non valuti mai le regole che non possono essere applicate. <br>
+ * - CR2 e CR3 sono valutate solo se esistono assiomi con lato sinistro intersezione o con lato destro esistenziale; <br>
+ * - CR4 considera, per una nuova espressione D' ∈ S(D), solo i predecessori di D sui ruoli r con un assioma ∃r.D' ⊑ E; <br>
+ * - CR5 è valutata solo se un assioma ha lato destro Nothing o ∃r.Nothing, l'unico modo in cui Nothing può entrare in S; <br>
+ * - CR6, con la raggiungibilità tra i concetti e l'indice singleton → concetti, è valutata solo se esistono singleton. <br>
+ * Un arco (C, D) ∈ R(r) può modificare S(C) solo tramite CR4 su r, CR5 o CR6: se nessuna delle tre può essere
+ * applicata, l'arco viene registrato ma D non viene attivato.
+ * <p>
+ * Il piano deve essere compilato di nuovo quando cambiano gli assiomi dell'indice o i concetti del dizionario.
+ **/
+final class SaturationPlan {
+
+    final boolean conjunctions;
+    final boolean existentialSuperClasses;
+    final boolean bottom;
+    final boolean nominals;
+    private final AxiomIndex index;
+
+    SaturationPlan(AxiomIndex index, ConceptDictionary dictionary) {
+        this.index = index;
+        this.conjunctions = index.hasConjunctions();
+        this.existentialSuperClasses = index.hasExistentialSuperClasses();
+        this.bottom = index.derivesBottom();
+        this.nominals = dictionary.hasNominals();
+    }
+
+    /**
+     * @return true se un arco su relation può modificare l'insieme S del suo lato sinistro.
+     **/
+    boolean propagatesAlong(int relation) {
+        return this.bottom || this.nominals || this.index.hasExistentialsOn(relation);
+    }
+
+    /**
+     * @return i ruoli su cui una nuova espressione filler ∈ S(D) può attivare CR4 per i predecessori di D.
+     **/
+    int[] rolesWithFiller(int filler) {
+        return this.index.rolesWithFiller(filler);
+    }
+}
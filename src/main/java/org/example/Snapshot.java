@@ -0,0 +1,358 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot binario dello stato di un reasoner eager: il dizionario dei concetti e dei ruoli, la tabella delle classi
+ * temporanee, gli assiomi normalizzati e la saturazione della TBox. Lo snapshot è associato ad una chiave, l'hash SHA-256
+ * del documento da cui è stata caricata l'ontologia e del codice che ha prodotto lo snapshot, e viene letto solo se la
+ * chiave coincide, così che un riavvio possa evitare il caricamento, la normalizzazione e la saturazione dell'ontologia.
+ * <p>
+ * Il formato è una sequenza di interi big-endian: intestazione (MAGIC, VERSION, chiave), ruoli, concetti a partire da
+ * quelli successivi a Thing e Nothing, classi temporanee, assiomi normalizzati, lo stato scritto da Saturation.write()
+ * e infine il CRC-32 di tutti i byte precedenti. Le espressioni sono scritte tramite gli identificativi del dizionario.
+ * Il file viene letto in sequenza, una volta per verificare il CRC-32 e una per ricostruire lo stato, così che uno
+ * snapshot troncato o danneggiato venga scartato prima di essere interpretato.
+ **/
+final class Snapshot {
+
+    private static final int MAGIC = 0x454C2B2B; //"EL++"
+    private static final int VERSION = 2;
+
+    /**
+     * Le classi il cui codice determina il contenuto di uno snapshot: il formato, la normalizzazione, la numerazione delle
+     * classi temporanee, il dizionario, l'indice e la saturazione. Il loro bytecode fa parte della chiave, così che uno
+     * snapshot scritto da una build diversa non venga letto.
+     **/
+    private static final Class<?>[] FINGERPRINTED = {Snapshot.class, MyReasoner.class, TempClassTable.class,
+            ConceptDictionary.class, AxiomIndex.class, Saturation.class, RoleEdges.class, FrozenSets.class, FrozenEdges.class};
+
+    private static final int ATOMIC = 0;
+    private static final int INTERSECTION = 1;
+    private static final int SOME_VALUES_FROM = 2;
+    private static final int CLASS = 0;
+    private static final int ONE_OF = 1;
+    private static final int NAMED = 0;
+    private static final int ANONYMOUS = 1;
+
+    final ConceptDictionary dictionary;
+    final TempClassTable tempClasses;
+    final Set<OWLSubClassOfAxiom> normalizedAxioms;
+    final AxiomIndex axiomIndex;
+    final Saturation closure;
+
+    private Snapshot(ConceptDictionary dictionary, TempClassTable tempClasses, Set<OWLSubClassOfAxiom> normalizedAxioms,
+                     AxiomIndex axiomIndex, Saturation closure) {
+        this.dictionary = dictionary;
+        this.tempClasses = tempClasses;
+        this.normalizedAxioms = normalizedAxioms;
+        this.axiomIndex = axiomIndex;
+        this.closure = closure;
+    }
+
+    /**
+     * Il contenuto di uno snapshot letto in sequenza. Le lunghezze sono verificate rispetto alla dimensione del file,
+     * così che un valore danneggiato non possa causare allocazioni arbitrarie.
+     **/
+    static final class Input extends DataInputStream {
+
+        private final long limit;
+
+        private Input(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        /**
+         * @return una lunghezza o un numero di elementi, compreso tra 0 e la dimensione del file.
+         * @throws StreamCorruptedException se il valore letto non può essere una lunghezza.
+         **/
+        int readLength() throws IOException {
+            int length = readInt();
+            if (length < 0 || length > this.limit) {
+                throw new StreamCorruptedException("Lunghezza non valida: " + length);
+            }
+            return length;
+        }
+    }
+
+    /**
+     * @return la chiave di uno snapshot per l'ontologia contenuta in source: l'hash SHA-256 del file, di VERSION
+     * e del bytecode delle classi FINGERPRINTED.
+     **/
+    static byte[] key(File source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+        digest.update(ByteBuffer.allocate(4).putInt(VERSION).array());
+        for (Class<?> c : FINGERPRINTED) {
+            try (InputStream in = c.getResourceAsStream(c.getSimpleName() + ".class")) {
+                if (in == null) {
+                    throw new IllegalStateException("Bytecode di " + c.getName() + " non disponibile");
+                }
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        return digest.digest(Files.readAllBytes(source.toPath()));
+    }
+
+    /**
+     * Scrive uno snapshot in file. Lo snapshot viene scritto in un file temporaneo nella stessa cartella e poi
+     * sostituito a file, così che un lettore concorrente veda sempre uno snapshot completo.
+     **/
+    static void write(File file, byte[] key, ConceptDictionary dictionary, TempClassTable tempClasses,
+                      Set<OWLSubClassOfAxiom> normalizedAxioms, Saturation closure) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            CRC32 checksum = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)), checksum))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(key.length);
+                out.write(key);
+
+                out.writeInt(dictionary.roleCount());
+                for (int id = 0; id < dictionary.roleCount(); id++) {
+                    OWLObjectPropertyExpression role = dictionary.role(id);
+                    out.writeBoolean(role.isAnonymous()); //Un ruolo anonimo è l'inverso di una proprietà
+                    writeString(out, role.getNamedProperty().getIRI().toString());
+                }
+                out.writeInt(dictionary.conceptCount());
+                for (int id = ConceptDictionary.NOTHING + 1; id < dictionary.conceptCount(); id++) {
+                    writeConcept(out, dictionary.concept(id));
+                }
+
+                out.writeInt(tempClasses.size());
+                List<IOException> failures = new ArrayList<>();
+                tempClasses.forEach((expression, tempClass) -> {
+                    try {
+                        writeExpression(out, expression, dictionary);
+                        out.writeInt(dictionary.conceptIdOf(tempClass));
+                    } catch (IOException e) {
+                        failures.add(e);
+                    }
+                });
+                if (!failures.isEmpty()) {
+                    throw failures.get(0);
+                }
+
+                out.writeInt(normalizedAxioms.size());
+                for (OWLSubClassOfAxiom ax : normalizedAxioms) {
+                    writeExpression(out, ax.getSubClass(), dictionary);
+                    writeExpression(out, ax.getSuperClass(), dictionary);
+                }
+
+                closure.write(out);
+                out.writeLong(checksum.getValue());
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Legge lo snapshot contenuto in file.
+     *
+     * @return lo snapshot letto, oppure null se file non esiste, non è uno snapshot di questa versione, è stato scritto
+     * per una chiave diversa da key oppure è troncato o danneggiato.
+     * @throws IOException se non è possibile leggere file.
+     **/
+    static Snapshot read(File file, byte[] key, OWLDataFactory df) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        long length = file.length();
+        try {
+            //L'intestazione viene letta prima del CRC-32, così che uno snapshot di un'altra ontologia sia scartato subito
+            try (Input in = open(file, length)) {
+                if (!readHeader(in, key)) {
+                    return null;
+                }
+            }
+            if (!hasValidChecksum(file.toPath(), length - 8)) {
+                return null;
+            }
+            try (Input in = open(file, length)) {
+                readHeader(in, key);
+                return read(in, df);
+            }
+        } catch (EOFException | StreamCorruptedException e) {
+            return null;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | ClassCastException e) {
+            //Un identificativo che non corrisponde ad alcun concetto o ruolo del dizionario letto
+            return null;
+        }
+    }
+
+    private static Input open(File file, long length) throws IOException {
+        return new Input(new BufferedInputStream(Files.newInputStream(file.toPath())), length);
+    }
+
+    /**
+     * @return true se in inizia con l'intestazione di uno snapshot di questa versione scritto per key.
+     **/
+    private static boolean readHeader(Input in, byte[] key) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return false;
+        }
+        byte[] storedKey = new byte[in.readLength()];
+        in.readFully(storedKey);
+        return Arrays.equals(storedKey, key);
+    }
+
+    /**
+     * @return true se gli ultimi 8 byte del file path sono il CRC-32 dei primi length byte.
+     **/
+    private static boolean hasValidChecksum(Path path, long length) throws IOException {
+        if (length < 0) {
+            return false;
+        }
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            byte[] buffer = new byte[8192];
+            for (long remaining = length; remaining > 0; ) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                checksum.update(buffer, 0, read);
+                remaining -= read;
+            }
+            return in.readLong() == checksum.getValue();
+        }
+    }
+
+    private static Snapshot read(Input in, OWLDataFactory df) throws IOException {
+        ConceptDictionary dictionary = new ConceptDictionary(df);
+        for (int i = in.readLength(); i > 0; i--) {
+            boolean inverse = in.readBoolean();
+            OWLObjectProperty property = df.getOWLObjectProperty(IRI.create(readString(in)));
+            dictionary.role(inverse ? df.getOWLObjectInverseOf(property) : property);
+        }
+        int conceptCount = in.readLength();
+        for (int id = ConceptDictionary.NOTHING + 1; id < conceptCount; id++) {
+            dictionary.concept(readConcept(in, df));
+        }
+
+        TempClassTable tempClasses = new TempClassTable(df);
+        for (int i = in.readLength(); i > 0; i--) {
+            OWLClassExpression expression = readExpression(in, dictionary, df);
+            tempClasses.put(expression, (OWLClass) dictionary.concept(in.readInt()));
+        }
+
+        Set<OWLSubClassOfAxiom> normalizedAxioms = new HashSet<>();
+        for (int i = in.readLength(); i > 0; i--) {
+            OWLClassExpression subClass = readExpression(in, dictionary, df);
+            OWLClassExpression superClass = readExpression(in, dictionary, df);
+            normalizedAxioms.add(df.getOWLSubClassOfAxiom(subClass, superClass));
+        }
+        AxiomIndex axiomIndex = new AxiomIndex(dictionary, normalizedAxioms);
+
+        Saturation closure = new Saturation(dictionary, axiomIndex, in);
+        return new Snapshot(dictionary, tempClasses, normalizedAxioms, axiomIndex, closure);
+    }
+
+    private static void writeConcept(DataOutputStream out, OWLClassExpression concept) throws IOException {
+        if (concept.getClassExpressionType() == ClassExpressionType.OWL_CLASS) {
+            out.writeByte(CLASS);
+            writeString(out, concept.asOWLClass().getIRI().toString());
+            return;
+        }
+        List<OWLIndividual> individuals = ((OWLObjectOneOf) concept).getOperandsAsList();
+        out.writeByte(ONE_OF);
+        out.writeInt(individuals.size());
+        for (OWLIndividual individual : individuals) {
+            if (individual.isNamed()) {
+                out.writeByte(NAMED);
+                writeString(out, individual.asOWLNamedIndividual().getIRI().toString());
+            } else {
+                out.writeByte(ANONYMOUS);
+                writeString(out, individual.asOWLAnonymousIndividual().getID().getID());
+            }
+        }
+    }
+
+    private static OWLClassExpression readConcept(Input in, OWLDataFactory df) throws IOException {
+        if (in.readByte() == CLASS) {
+            return df.getOWLClass(IRI.create(readString(in)));
+        }
+        List<OWLIndividual> individuals = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--) {
+            individuals.add(in.readByte() == NAMED
+                    ? df.getOWLNamedIndividual(IRI.create(readString(in)))
+                    : df.getOWLAnonymousIndividual(readString(in)));
+        }
+        return df.getOWLObjectOneOf(individuals);
+    }
+
+    /**
+     * Scrive un'espressione in forma normale: un concetto atomico, un'intersezione di due concetti atomici
+     * oppure un esistenziale con filler atomico.
+     **/
+    private static void writeExpression(DataOutputStream out, OWLClassExpression expression, ConceptDictionary dictionary)
+            throws IOException {
+        switch (expression.getClassExpressionType()) {
+            case OBJECT_INTERSECTION_OF:
+                List<OWLClassExpression> operands = ((OWLObjectIntersectionOf) expression).getOperandsAsList();
+                out.writeByte(INTERSECTION);
+                out.writeInt(dictionary.conceptIdOf(operands.get(0)));
+                out.writeInt(dictionary.conceptIdOf(operands.get(1)));
+                break;
+            case OBJECT_SOME_VALUES_FROM:
+                OWLObjectSomeValuesFrom someValuesFrom = (OWLObjectSomeValuesFrom) expression;
+                out.writeByte(SOME_VALUES_FROM);
+                out.writeInt(dictionary.roleIdOf(someValuesFrom.getProperty()));
+                out.writeInt(dictionary.conceptIdOf(someValuesFrom.getFiller()));
+                break;
+            default:
+                out.writeByte(ATOMIC);
+                out.writeInt(dictionary.conceptIdOf(expression));
+        }
+    }
+
+    private static OWLClassExpression readExpression(Input in, ConceptDictionary dictionary, OWLDataFactory df) throws IOException {
+        switch (in.readByte()) {
+            case INTERSECTION:
+                OWLClassExpression first = dictionary.concept(in.readInt());
+                return df.getOWLObjectIntersectionOf(first, dictionary.concept(in.readInt()));
+            case SOME_VALUES_FROM:
+                OWLObjectPropertyExpression role = dictionary.role(in.readInt());
+                return df.getOWLObjectSomeValuesFrom(role, dictionary.concept(in.readInt()));
+            default:
+                return dictionary.concept(in.readInt());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(Input in) throws IOException {
+        byte[] bytes = new byte[in.readLength()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
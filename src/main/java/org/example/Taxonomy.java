@@ -0,0 +1,238 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import java.util.*;
+
+/**
+ * Classificazione delle classi con nome di una TBox, ricavata da una saturazione completa: per ogni classe C le classi
+ * D con nome tali che C ⊑ D sono quelle presenti in S(C) (tutte, se Nothing ∈ S(C)).
+ * <p>
+ * Le classi equivalenti sono raggruppate in nodi: il nodo di Thing contiene le classi equivalenti a Thing, quello di
+ * Nothing le classi insoddisfacibili. I nodi formano una tassonomia transitivamente ridotta, in cui ogni nodo è collegato
+ * solo ai propri padri e figli diretti. Un nodo è un insieme non modificabile di classi.
+ **/
+public final class Taxonomy {
+
+    private final OWLClass thing;
+    private final OWLClass nothing;
+    private final Map<OWLClass, Set<OWLClass>> subsumers;
+    private final Map<OWLClass, Set<OWLClass>> nodeOf = new HashMap<>();
+    private final Map<Set<OWLClass>, List<Set<OWLClass>>> parents = new IdentityHashMap<>();
+    private final Map<Set<OWLClass>, List<Set<OWLClass>>> children = new IdentityHashMap<>();
+
+    private Taxonomy(OWLDataFactory df, Map<OWLClass, Set<OWLClass>> subsumers) {
+        this.thing = df.getOWLThing();
+        this.nothing = df.getOWLNothing();
+        this.subsumers = subsumers;
+    }
+
+    /**
+     * Classifica classes (a cui sono aggiunti Thing e Nothing) rispetto alla saturazione completa closure.
+     *
+     * @param dictionary il dizionario dei concetti di closure; le classi che non vi compaiono hanno come superclassi sé
+     *                   stesse e le superclassi di Thing.
+     **/
+    static Taxonomy of(Saturation closure, ConceptDictionary dictionary, Collection<OWLClass> classes, OWLDataFactory df) {
+        Set<OWLClass> allClasses = new HashSet<>(classes);
+        allClasses.add(df.getOWLThing());
+        allClasses.add(df.getOWLNothing());
+        IntMap<OWLClass> classOf = new IntMap<>();
+        for (OWLClass c : allClasses) {
+            int id = dictionary.conceptIdOf(c);
+            if (id >= 0) {
+                classOf.put(id, c);
+            }
+        }
+
+        Map<OWLClass, Set<OWLClass>> subsumers = new HashMap<>();
+        Set<OWLClass> unsatisfiable = new HashSet<>();
+        //Una classe che non compare negli assiomi riceve solo le conseguenze degli assiomi con Thing a sinistra
+        IntSet setOfThing = closure.subsumers(ConceptDictionary.THING);
+        for (OWLClass c : allClasses) {
+            int id = dictionary.conceptIdOf(c);
+            IntSet setOfC = id >= 0 ? closure.subsumers(id) : setOfThing;
+            if (c.isOWLNothing() || (setOfC != null && setOfC.contains(ConceptDictionary.NOTHING))) {
+                unsatisfiable.add(c);
+                continue;
+            }
+            Set<OWLClass> superClasses = new HashSet<>();
+            superClasses.add(c);
+            superClasses.add(df.getOWLThing());
+            if (setOfC != null) {
+                setOfC.forEach(expression -> {
+                    OWLClass superClass = classOf.get(expression);
+                    if (superClass != null) {
+                        superClasses.add(superClass);
+                    }
+                });
+            }
+            subsumers.put(c, Collections.unmodifiableSet(superClasses));
+        }
+        //Una classe insoddisfacibile è sottoclasse di tutte le classi
+        Set<OWLClass> everything = Collections.unmodifiableSet(allClasses);
+        for (OWLClass c : unsatisfiable) {
+            subsumers.put(c, everything);
+        }
+
+        Taxonomy taxonomy = new Taxonomy(df, subsumers);
+        taxonomy.buildNodes(unsatisfiable);
+        taxonomy.buildHierarchy();
+        return taxonomy;
+    }
+
+    /**
+     * Raggruppa le classi equivalenti: D appartiene al nodo di C se C ⊑ D e D ⊑ C.
+     **/
+    private void buildNodes(Set<OWLClass> unsatisfiable) {
+        Set<OWLClass> bottom = Collections.unmodifiableSet(unsatisfiable);
+        for (OWLClass c : unsatisfiable) {
+            this.nodeOf.put(c, bottom);
+        }
+        for (Map.Entry<OWLClass, Set<OWLClass>> entry : this.subsumers.entrySet()) {
+            OWLClass c = entry.getKey();
+            if (this.nodeOf.containsKey(c)) {
+                continue;
+            }
+            Set<OWLClass> node = new HashSet<>();
+            for (OWLClass superClass : entry.getValue()) {
+                if (this.subsumers.get(superClass).contains(c)) {
+                    node.add(superClass);
+                }
+            }
+            Set<OWLClass> unmodifiable = Collections.unmodifiableSet(node);
+            for (OWLClass member : node) {
+                this.nodeOf.put(member, unmodifiable);
+            }
+        }
+        for (Set<OWLClass> node : nodes()) {
+            this.parents.put(node, new ArrayList<>());
+            this.children.put(node, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Calcola i padri diretti di ogni nodo: i nodi delle superclassi strette sono considerati dal più specifico (quello con
+     * più superclassi) al più generale, e un nodo è un padre diretto se non è superclasse di un padre diretto già trovato.
+     * Se Q ⊑ P strettamente, Q ha più superclassi di P e viene quindi considerato prima.
+     * I padri diretti del nodo di Nothing sono i nodi senza figli.
+     **/
+    private void buildHierarchy() {
+        Set<OWLClass> bottom = this.nodeOf.get(this.nothing);
+        for (Set<OWLClass> node : this.parents.keySet()) {
+            if (node == bottom) {
+                continue;
+            }
+            OWLClass representative = node.iterator().next();
+            Set<Set<OWLClass>> strict = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (OWLClass superClass : this.subsumers.get(representative)) {
+                Set<OWLClass> superNode = this.nodeOf.get(superClass);
+                if (superNode != node) {
+                    strict.add(superNode);
+                }
+            }
+            List<Set<OWLClass>> candidates = new ArrayList<>(strict);
+            candidates.sort(Comparator.comparingInt((Set<OWLClass> n) -> this.subsumers.get(n.iterator().next()).size()).reversed());
+            List<Set<OWLClass>> direct = this.parents.get(node);
+            for (Set<OWLClass> candidate : candidates) {
+                OWLClass candidateClass = candidate.iterator().next();
+                boolean covered = false;
+                for (Set<OWLClass> parent : direct) {
+                    if (this.subsumers.get(parent.iterator().next()).contains(candidateClass)) {
+                        covered = true;
+                        break;
+                    }
+                }
+                if (!covered) {
+                    direct.add(candidate);
+                    this.children.get(candidate).add(node);
+                }
+            }
+        }
+        for (Set<OWLClass> node : this.parents.keySet()) {
+            if (node != bottom && this.children.get(node).isEmpty()) {
+                this.parents.get(bottom).add(node);
+                this.children.get(node).add(bottom);
+            }
+        }
+    }
+
+    OWLClass thing() {
+        return this.thing;
+    }
+
+    OWLClass nothing() {
+        return this.nothing;
+    }
+
+    /**
+     * @return true se c è una delle classi classificate.
+     **/
+    boolean isClassified(OWLClass c) {
+        return this.nodeOf.containsKey(c);
+    }
+
+    private Set<OWLClass> checkedNode(OWLClass c) {
+        Set<OWLClass> node = this.nodeOf.get(c);
+        if (node == null) {
+            throw new IllegalArgumentException("Classe non classificata: " + c);
+        }
+        return node;
+    }
+
+    /**
+     * @return true se sub ⊑ sup.
+     **/
+    public boolean isSubClassOf(OWLClass sub, OWLClass sup) {
+        checkedNode(sub);
+        return this.subsumers.get(sub).contains(sup);
+    }
+
+    /**
+     * @return tutte le classi con nome D tali che c ⊑ D, compresi c, le classi equivalenti a c e Thing.
+     **/
+    public Set<OWLClass> subsumers(OWLClass c) {
+        checkedNode(c);
+        return this.subsumers.get(c);
+    }
+
+    /**
+     * @return il nodo di c: le classi equivalenti a c, compresa c.
+     **/
+    public Set<OWLClass> equivalentClasses(OWLClass c) {
+        return checkedNode(c);
+    }
+
+    /**
+     * @return i nodi dei padri diretti di c; vuoto per il nodo di Thing.
+     **/
+    public Set<Set<OWLClass>> directSuperClasses(OWLClass c) {
+        return new HashSet<>(this.parents.get(checkedNode(c)));
+    }
+
+    /**
+     * @return i nodi dei figli diretti di c; vuoto per il nodo di Nothing.
+     **/
+    public Set<Set<OWLClass>> directSubClasses(OWLClass c) {
+        return new HashSet<>(this.children.get(checkedNode(c)));
+    }
+
+    /**
+     * @return le classi insoddisfacibili, cioè equivalenti a Nothing, escluso Nothing.
+     **/
+    public Set<OWLClass> unsatisfiableClasses() {
+        Set<OWLClass> unsatisfiable = new HashSet<>(this.nodeOf.get(this.nothing));
+        unsatisfiable.remove(this.nothing);
+        return unsatisfiable;
+    }
+
+    /**
+     * @return tutti i nodi della tassonomia.
+     **/
+    public Set<Set<OWLClass>> nodes() {
+        Set<Set<OWLClass>> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        nodes.addAll(this.nodeOf.values());
+        return new HashSet<>(nodes);
+    }
+}
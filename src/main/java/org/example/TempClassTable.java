@@ -0,0 +1,99 @@
+package org.example;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Tabella delle classi temporanee #TEMPn create dalla normalizzazione, indicizzate per la sotto-espressione
+ * già normalizzata che rappresentano (un'intersezione di due operandi o un esistenziale con filler atomico).
+ * Una sotto-espressione strutturalmente identica riceve quindi sempre la stessa classe temporanea, e gli assiomi
+ * che la definiscono vengono generati una sola volta.
+ * <p>
+ * Una tabella può estendere una tabella padre (ad esempio quella della TBox per gli assiomi fittizi di una query):
+ * le classi del padre sono riusate senza generare di nuovo i loro assiomi, che devono quindi essere già presenti
+ * negli assiomi normalizzati con cui verrà saturata la query. Le nuove classi ricevono numeri successivi a quelli del padre,
+ * che da quel momento non deve più ricevere nuove classi e può essere letto da più thread contemporaneamente.
+ * <p>
+ * Più thread possono normalizzare contemporaneamente con la stessa tabella: ogni sotto-espressione riceve una sola
+ * classe temporanea, e gli assiomi che la definiscono vengono generati solo dal thread che l'ha creata.
+ **/
+final class TempClassTable {
+
+    private final OWLDataFactory df;
+    private final TempClassTable parent;
+    private final Map<OWLClassExpression, OWLClass> tempClasses = new ConcurrentHashMap<>();
+    private final AtomicInteger count;
+
+    TempClassTable(OWLDataFactory df) {
+        this.df = df;
+        this.parent = null;
+        this.count = new AtomicInteger();
+    }
+
+    TempClassTable(TempClassTable parent) {
+        this.df = parent.df;
+        this.parent = parent;
+        this.count = new AtomicInteger(parent.count.get());
+    }
+
+    /**
+     * @return la classe temporanea già associata a expression in questa tabella o nel padre, oppure null.
+     **/
+    OWLClass get(OWLClassExpression expression) {
+        if (this.parent != null) {
+            OWLClass tempClass = this.parent.get(expression);
+            if (tempClass != null) {
+                return tempClass;
+            }
+        }
+        return this.tempClasses.get(expression);
+    }
+
+    /**
+     * @return la classe temporanea associata a expression in questa tabella o nel padre. Se expression non ne ha ancora
+     * una, crea una nuova classe temporanea #TEMPn, la associa a expression e la passa a definition, che deve generare
+     * gli assiomi che la definiscono.
+     **/
+    OWLClass tempClass(OWLClassExpression expression, Consumer<OWLClass> definition) {
+        OWLClass tempClass = get(expression);
+        if (tempClass != null) {
+            return tempClass;
+        }
+        boolean[] created = new boolean[1];
+        tempClass = this.tempClasses.computeIfAbsent(expression, e -> {
+            created[0] = true;
+            return this.df.getOWLClass(IRI.create("#TEMP" + this.count.getAndIncrement()));
+        });
+        if (created[0]) {
+            definition.accept(tempClass);
+        }
+        return tempClass;
+    }
+
+    /**
+     * Associa a expression una classe temporanea già creata da tempClass(), ad esempio in una tabella letta da uno snapshot.
+     **/
+    void put(OWLClassExpression expression, OWLClass tempClass) {
+        this.tempClasses.put(expression, tempClass);
+        this.count.incrementAndGet();
+    }
+
+    /**
+     * Esegue action su ogni coppia (sotto-espressione, classe temporanea) di questa tabella, senza quelle del padre.
+     **/
+    void forEach(BiConsumer<OWLClassExpression, OWLClass> action) {
+        this.tempClasses.forEach(action);
+    }
+
+    int size() {
+        return this.tempClasses.size();
+    }
+}
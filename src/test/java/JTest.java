@@ -1,28 +1,75 @@
 import org.example.MyReasoner;
 import org.example.OWLFactory;
+import org.example.QueryAnswer;
+import org.example.Realization;
+import org.example.ReasonerServer;
+import org.example.ReasonerStats;
+import org.example.Taxonomy;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.Imports;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class JTest {
 
+    private static final List<Boolean> REFERENCE_ANSWERS = Arrays.asList(true, false, false, true);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private MyReasoner reasoner;
     private OWLFactory of;
+    private OWLOntology ontology;
 
     @Before
     public void setUp() throws Exception {
         OWLOntologyManager man = OWLManager.createOWLOntologyManager();
         OWLOntology o = man.loadOntologyFromOntologyDocument(new File("ontology/FOOTBALL_ONTOLOGY.rdf"));
         this.of = new OWLFactory(man, o);
+        this.ontology = o;
         this.reasoner = new MyReasoner(o);
     }
 
+    @After
+    public void tearDown() {
+        this.reasoner.dispose();
+    }
+
     /**
      * Test to check if the intersection of GiocatoreTitolare and GiocatorePanchina is a subclass of Giocatore.
      * <pre>
@@ -196,4 +243,871 @@ public class JTest {
         reasoner.doQuery(query);
     }
 
+    /**
+     * Test to check that a reasoner which saturates the TBox at construction gives the same answers as the default one.
+     */
+    @Test
+    public void EAGER_REASONER_MATCHES_DEFAULT_REASONER() {
+        MyReasoner eager = new MyReasoner(ontology, true);
+        try {
+            for (OWLSubClassOfAxiom query : referenceQueries()) {
+                assertEquals(query.toString(), reasoner.doQuery(query), eager.doQuery(query));
+            }
+            assertReferenceAnswers(eager);
+        } finally {
+            eager.dispose();
+        }
+    }
+
+    /**
+     * Test to check that a batch of queries saturated together gives, for each query, the same answer as a single query.
+     */
+    @Test
+    public void BATCH_QUERIES_MATCH_SINGLE_QUERIES() {
+        MyReasoner eager = new MyReasoner(ontology, true, 1, 0);
+        try {
+            for (MyReasoner r : Arrays.asList(reasoner, eager)) {
+                assertReferenceAnswers(r);
+                List<OWLSubClassOfAxiom> queries = referenceQueries();
+                for (int i = 0; i < queries.size(); i++) {
+                    assertEquals(queries.get(i).toString(), REFERENCE_ANSWERS.get(i), r.doQuery(queries.get(i)));
+                }
+            }
+        } finally {
+            eager.dispose();
+        }
+    }
+
+    /**
+     * Test to check that one eager reasoner answers queries submitted concurrently from several threads
+     * with the same answers as sequential queries.
+     */
+    @Test
+    public void CONCURRENT_QUERIES_MATCH_SEQUENTIAL_QUERIES() throws Exception {
+        MyReasoner eager = new MyReasoner(ontology, true);
+        List<OWLSubClassOfAxiom> queries = referenceQueries();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> answers = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                OWLSubClassOfAxiom query = queries.get(i % queries.size());
+                answers.add(executor.submit(() -> eager.doQuery(query)));
+            }
+            for (int i = 0; i < answers.size(); i++) {
+                assertEquals(REFERENCE_ANSWERS.get(i % queries.size()), answers.get(i).get());
+            }
+            assertReferenceAnswers(eager);
+        } finally {
+            executor.shutdown();
+            eager.dispose();
+        }
+    }
+
+    /**
+     * Test to check that saturating the TBox on several threads gives the same answers as the sequential saturation.
+     */
+    @Test
+    public void PARALLEL_SATURATION_MATCHES_SEQUENTIAL_SATURATION() {
+        for (boolean eager : new boolean[]{true, false}) {
+            MyReasoner r = new MyReasoner(ontology, eager, eager ? 4 : 3);
+            try {
+                assertReferenceAnswers(r);
+            } finally {
+                r.dispose();
+            }
+        }
+    }
+
+    /**
+     * Test to check that a subexpression repeated inside a query, and across the queries of a batch, is answered correctly
+     * when it is normalized to a single temporary class.
+     * <pre>
+     * Query in OWL2:
+     * (GiocatoreTitolare ⊓ GiocatorePanchina) ⊓ ∃ haSquadra.(GiocatoreTitolare ⊓ GiocatorePanchina) ⊑ ∃ haSquadra.(GiocatoreTitolare ⊓ GiocatorePanchina)
+     * </pre>
+     */
+    @Test
+    public void REPEATED_SUBEXPRESSIONS_SHARE_TEMP_CLASSES() {
+        OWLClassExpression both = of.intersectionOf(of.clazz("GiocatoreTitolare"), of.clazz("GiocatorePanchina"));
+        OWLClassExpression someBoth = of.someValuesFrom(of.property("haSquadra"), both);
+        OWLSubClassOfAxiom query = of.subclassOf(of.intersectionOf(both, someBoth), someBoth);
+
+        assertTrue(reasoner.doQuery(query));
+        assertEquals(Arrays.asList(true, true, true), new MyReasoner(ontology, true).doQueries(Arrays.asList(query, query, query)));
+    }
+
+    /**
+     * Test to check that the reasoners follow the changes of the ontology: an added axiom makes the query valid,
+     * removing it again makes the query invalid. TBox axioms other than subclass axioms are ignored by both reasoners.
+     * <pre>
+     * Axiom added and then removed in OWL2:
+     * Coach ⊑ GiocatoreTitolare
+     * Axioms added and ignored in OWL2:
+     * Coach ≡ Dirigente
+     * Coach ⊓ GiocatoreTitolare ⊑ ⊥ (as DisjointClasses)
+     * Query in OWL2:
+     * Coach ⊑ ∃ trasferta.{liverpool}
+     * </pre>
+     */
+    @Test
+    public void REASONERS_FOLLOW_ONTOLOGY_CHANGES() {
+        MyReasoner eager = new MyReasoner(ontology, true);
+        try {
+            OWLDataFactory df = ontology.getOWLOntologyManager().getOWLDataFactory();
+            OWLSubClassOfAxiom axiom = of.subclassOf(of.clazz("Coach"), of.clazz("GiocatoreTitolare"));
+            OWLSubClassOfAxiom query = of.subclassOf(
+                    of.clazz("Coach"),
+                    of.someValuesFrom(of.property("trasferta"), of.oneOf(of.individual("liverpool"))));
+            assertFalse(reasoner.doQuery(query));
+            assertFalse(eager.doQuery(query));
+
+            ontology.addAxiom(axiom);
+            assertTrue(reasoner.doQuery(query));
+            assertTrue(eager.doQuery(query));
+
+            ontology.addAxioms(df.getOWLEquivalentClassesAxiom(of.clazz("Coach"), of.clazz("Dirigente")),
+                    df.getOWLDisjointClassesAxiom(of.clazz("Coach"), of.clazz("GiocatoreTitolare")));
+            assertTrue(reasoner.doQuery(query));
+            assertTrue(eager.doQuery(query));
+
+            ontology.removeAxiom(axiom);
+            assertFalse(reasoner.doQuery(query));
+            assertFalse(eager.doQuery(query));
+        } finally {
+            eager.dispose();
+        }
+    }
+
+    /**
+     * Test to check that a reasoner restored from a snapshot answers like the reasoner that wrote it, that the
+     * snapshot is written again when the ontology document changes, and that a truncated or corrupted snapshot is
+     * discarded and rebuilt instead of being read.
+     */
+    @Test
+    public void SNAPSHOT_RESTART_MATCHES_LOADED_REASONER() throws Exception {
+        File source = folder.newFile("football.rdf");
+        Files.copy(new File("ontology/FOOTBALL_ONTOLOGY.rdf").toPath(), source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        File snapshot = new File(folder.getRoot(), "football.snapshot");
+
+        assertSnapshotAnswers(source, snapshot);
+        byte[] written = Files.readAllBytes(snapshot.toPath());
+        assertSnapshotAnswers(source, snapshot);
+        assertArrayEquals(written, Files.readAllBytes(snapshot.toPath()));
+
+        byte[] corrupted = written.clone();
+        corrupted[corrupted.length / 2] ^= 0x5A;
+        for (byte[] damaged : Arrays.asList(Arrays.copyOf(written, written.length / 2), corrupted)) {
+            Files.write(snapshot.toPath(), damaged);
+            assertSnapshotAnswers(source, snapshot);
+            byte[] rebuilt = Files.readAllBytes(snapshot.toPath());
+            assertFalse(Arrays.equals(damaged, rebuilt));
+            assertSnapshotAnswers(source, snapshot); //Lo snapshot ricostruito viene letto, non scritto di nuovo
+            assertArrayEquals(rebuilt, Files.readAllBytes(snapshot.toPath()));
+        }
+
+        Files.write(source.toPath(), "\n".getBytes(), StandardOpenOption.APPEND);
+        assertSnapshotAnswers(source, snapshot);
+        assertFalse(Arrays.equals(written, Files.readAllBytes(snapshot.toPath())));
+    }
+
+    private void assertSnapshotAnswers(File source, File snapshot) throws Exception {
+        MyReasoner r = MyReasoner.open(source, snapshot);
+        try {
+            assertReferenceAnswers(r);
+        } finally {
+            r.dispose();
+        }
+    }
+
+    /**
+     * Test to check that repeated queries, also written with nested or repeated conjuncts, are answered by the cache,
+     * that the least recently used answer is evicted when the cache is full and that a change of the ontology
+     * invalidates the cached answers.
+     * <pre>
+     * Query in OWL2:
+     * Coach ⊑ ∃ trasferta.{liverpool}
+     * Coach ⊓ (Coach ⊓ Coach) ⊑ ∃ trasferta.{liverpool}
+     * GiocatoreTitolare ⊓ GiocatorePanchina ⊑ Giocatore
+     * </pre>
+     */
+    @Test
+    public void QUERY_CACHE_HITS_EVICTS_AND_INVALIDATES() {
+        MyReasoner cached = new MyReasoner(ontology, true, 1, 1);
+        OWLClassExpression liverpool = of.someValuesFrom(of.property("trasferta"), of.oneOf(of.individual("liverpool")));
+        OWLSubClassOfAxiom query = of.subclassOf(of.clazz("Coach"), liverpool);
+        OWLSubClassOfAxiom sameQuery = of.subclassOf(
+                of.intersectionOf(of.clazz("Coach"), of.intersectionOf(of.clazz("Coach"), of.clazz("Coach"))), liverpool);
+        OWLSubClassOfAxiom otherQuery = of.subclassOf(
+                of.intersectionOf(of.clazz("GiocatoreTitolare"), of.clazz("GiocatorePanchina")), of.clazz("Giocatore"));
+
+        assertEquals(Arrays.asList(false, false), cached.doQueries(Arrays.asList(query, sameQuery)));
+        assertEquals(0, cached.cacheHits());
+        assertEquals(1, cached.cacheMisses());
+        assertFalse(cached.doQuery(sameQuery));
+        assertEquals(1, cached.cacheHits());
+
+        assertTrue(cached.doQuery(otherQuery)); //Con una sola risposta conservata, query viene scartata
+        assertFalse(cached.doQuery(query));
+        assertEquals(1, cached.cacheHits());
+        assertEquals(3, cached.cacheMisses());
+
+        ontology.getOWLOntologyManager().addAxiom(ontology, of.subclassOf(of.clazz("Coach"), of.clazz("GiocatoreTitolare")));
+        assertTrue(cached.doQuery(query));
+        assertEquals(4, cached.cacheMisses());
+        assertTrue(cached.doQuery(query));
+        assertEquals(2, cached.cacheHits());
+    }
+
+    /**
+     * Test to check that the statistics count the normalization, the saturation and the rule derivations of the
+     * construction and of a query, and that they are exposed through JMX until the reasoner is disposed.
+     * <pre>
+     * Query in OWL2:
+     * GiocatoreTitolare ⊑ ∃ trasferta.{liverpool}
+     * </pre>
+     */
+    @Test
+    public void STATS_COUNT_PHASES_AND_RULES() throws Exception {
+        MyReasoner eager = new MyReasoner(ontology, true);
+        ReasonerStats stats = eager.stats();
+        assertEquals(1, stats.getNormalizations());
+        assertEquals(1, stats.getSaturations());
+        assertTrue(stats.getClosureSubsumptions() >= stats.getClosureConcepts());
+        long[] derivations = stats.getRuleDerivations();
+        assertEquals(6, derivations.length);
+        assertTrue(derivations[0] > 0 && derivations[2] > 0);
+        assertTrue(stats.getWorklistSteps() > 0);
+
+        assertTrue(eager.doQuery(of.subclassOf(
+                of.clazz("GiocatoreTitolare"),
+                of.someValuesFrom(of.property("trasferta"), of.oneOf(of.individual("liverpool"))))));
+        assertEquals(2, stats.getNormalizations());
+        assertEquals(2, stats.getSaturations());
+        assertEquals(1, stats.getQueries());
+        assertTrue(stats.getRuleFirings()[0] >= stats.getRuleDerivations()[0]);
+
+        ObjectName name = eager.registerMBean("stats-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(name, "Queries"));
+        assertArrayEquals(stats.getRuleDerivations(), (long[]) server.getAttribute(name, "RuleDerivations"));
+        eager.dispose();
+        assertFalse(server.isRegistered(name));
+    }
+
+    /**
+     * Test to check that the classification agrees with a query for every pair of named classes, on the lazy and the
+     * eager reasoner, and that the direct superclasses form a transitively reduced taxonomy.
+     */
+    @Test
+    public void CLASSIFICATION_MATCHES_PAIRWISE_QUERIES() {
+        List<OWLClass> classes = new ArrayList<>(ontology.getClassesInSignature());
+        List<OWLSubClassOfAxiom> queries = new ArrayList<>();
+        for (OWLClass sub : classes) {
+            for (OWLClass sup : classes) {
+                if (!sub.isOWLNothing() && !sup.isOWLNothing()) { //Le query non ammettono bottom
+                    queries.add(of.subclassOf(sub, sup));
+                }
+            }
+        }
+        List<Boolean> expected = reasoner.doQueries(queries);
+
+        for (Taxonomy taxonomy : Arrays.asList(reasoner.classify(), new MyReasoner(ontology, true).classify())) {
+            for (int i = 0; i < queries.size(); i++) {
+                OWLClass sub = queries.get(i).getSubClass().asOWLClass();
+                OWLClass sup = queries.get(i).getSuperClass().asOWLClass();
+                assertEquals(queries.get(i).toString(), expected.get(i), taxonomy.isSubClassOf(sub, sup));
+            }
+            assertTrue(taxonomy.isSubClassOf(of.clazz("GiocatoreTitolare"), of.clazz("Giocatore")));
+            assertTrue(taxonomy.equivalentClasses(of.clazz("Giocatore")).contains(of.clazz("Giocatore")));
+            for (OWLClass c : classes) {
+                Set<Set<OWLClass>> parents = taxonomy.directSuperClasses(c);
+                for (Set<OWLClass> parent : parents) {
+                    assertTrue(taxonomy.directSubClasses(parent.iterator().next()).contains(taxonomy.equivalentClasses(c)));
+                    for (Set<OWLClass> other : parents) {
+                        //Nessun padre diretto è sottoclasse stretta di un altro
+                        assertTrue(parent == other || !taxonomy.isSubClassOf(other.iterator().next(), parent.iterator().next()));
+                    }
+                }
+                assertEquals(c.isOWLThing() || taxonomy.equivalentClasses(c).contains(of.thing()), parents.isEmpty());
+            }
+        }
+    }
+
+    /**
+     * Test to check that a class declared in the ontology but absent from its axioms is classified under the
+     * superclasses of Thing, as a query on it would answer.
+     * <pre>
+     * Axioms added in OWL2:
+     * Declaration(Class(Isolata))
+     * ⊤ ⊑ Persona
+     * </pre>
+     */
+    @Test
+    public void CLASSES_OUTSIDE_THE_AXIOMS_INHERIT_FROM_THING() {
+        OWLOntologyManager man = ontology.getOWLOntologyManager();
+        man.addAxiom(ontology, man.getOWLDataFactory().getOWLDeclarationAxiom(of.clazz("Isolata")));
+        man.addAxiom(ontology, of.subclassOf(of.thing(), of.clazz("Persona")));
+        OWLSubClassOfAxiom query = of.subclassOf(of.clazz("Isolata"), of.clazz("Persona"));
+
+        for (boolean eager : new boolean[]{false, true}) {
+            MyReasoner r = new MyReasoner(ontology, eager);
+            try {
+                assertTrue(r.doQuery(query));
+                Taxonomy taxonomy = r.classify();
+                assertTrue(taxonomy.isSubClassOf(of.clazz("Isolata"), of.clazz("Persona")));
+                assertTrue(taxonomy.directSuperClasses(of.clazz("Isolata")).contains(taxonomy.equivalentClasses(of.clazz("Persona"))));
+            } finally {
+                r.dispose();
+            }
+        }
+    }
+
+    /**
+     * Test to check that the lazy reasoner answers from the ⊥-module of the query signature, smaller than the TBox,
+     * that queries with the same signature reuse the module and that a change of the ontology discards it.
+     * <pre>
+     * Queries in OWL2:
+     * GiocatoreTitolare ⊑ ∃ trasferta.{liverpool}
+     * ∃ trasferta.{liverpool} ⊑ GiocatoreTitolare
+     * Coach ⊑ ∃ trasferta.{liverpool}
+     * Axiom added in OWL2:
+     * Coach ⊑ GiocatoreTitolare
+     * </pre>
+     */
+    @Test
+    public void LAZY_QUERIES_REUSE_MODULES_PER_SIGNATURE() {
+        MyReasoner lazy = new MyReasoner(ontology, false, 1, 0);
+        ReasonerStats stats = lazy.stats();
+        assertEquals(0, stats.getNormalizations());
+        OWLClassExpression liverpool = of.someValuesFrom(of.property("trasferta"), of.oneOf(of.individual("liverpool")));
+        OWLSubClassOfAxiom query = of.subclassOf(of.clazz("GiocatoreTitolare"), liverpool);
+        OWLSubClassOfAxiom reversed = of.subclassOf(liverpool, of.clazz("GiocatoreTitolare"));
+        OWLSubClassOfAxiom coach = of.subclassOf(of.clazz("Coach"), liverpool);
+
+        assertTrue(lazy.doQuery(query));
+        assertEquals(1, stats.getModules());
+        assertTrue(stats.getModuleAxioms() < ontology.getTBoxAxioms(Imports.EXCLUDED).size());
+        assertEquals(new MyReasoner(ontology, true).doQuery(reversed), lazy.doQuery(reversed));
+        assertEquals(1, stats.getModules());
+        assertEquals(1, stats.getModuleCacheHits());
+
+        assertFalse(lazy.doQuery(coach));
+        ontology.getOWLOntologyManager().addAxiom(ontology, of.subclassOf(of.clazz("Coach"), of.clazz("GiocatoreTitolare")));
+        assertTrue(lazy.doQuery(coach));
+        assertEquals(3, stats.getModules());
+        assertEquals(1, stats.getModuleCacheHits());
+    }
+
+    /**
+     * Test to check that the realization agrees with a query {a} ⊑ C for every individual and named class, on the lazy
+     * and the eager reasoner, and that the direct types are the most specific ones.
+     * <pre>
+     * Axiom added in OWL2:
+     * {mario} ⊑ GiocatoreTitolare
+     * </pre>
+     */
+    @Test
+    public void REALIZATION_MATCHES_INSTANCE_QUERIES() {
+        OWLNamedIndividual mario = of.individual("mario");
+        ontology.getOWLOntologyManager().addAxiom(ontology, of.subclassOf(of.oneOf(mario), of.clazz("GiocatoreTitolare")));
+        List<OWLClass> classes = new ArrayList<>(ontology.getClassesInSignature());
+        classes.remove(of.nothing());
+
+        for (MyReasoner r : Arrays.asList(reasoner, new MyReasoner(ontology, true))) {
+            Realization realization = r.realize();
+            assertEquals(2, realization.individuals().size());
+            for (OWLNamedIndividual individual : realization.individuals()) {
+                for (OWLClass c : classes) {
+                    boolean expected = r.doQuery(of.subclassOf(of.oneOf(individual), c));
+                    assertEquals(individual + " " + c, expected, realization.isInstanceOf(individual, c));
+                    assertEquals(expected, realization.instancesOf(c).contains(individual));
+                }
+            }
+            assertTrue(realization.instancesOf(of.clazz("Giocatore")).contains(mario));
+            assertFalse(realization.directInstancesOf(of.clazz("Giocatore")).contains(mario));
+            assertTrue(realization.directInstancesOf(of.clazz("GiocatoreTitolare")).contains(mario));
+            assertEquals(Collections.singleton(realization.taxonomy().equivalentClasses(of.clazz("GiocatoreTitolare"))),
+                    realization.directTypes(mario));
+        }
+    }
+
+    /**
+     * Test to check that a batch of positive queries stops the saturation as soon as every #Y (or Nothing) is derived in
+     * S(#X), that a batch with a negative query is saturated to the fixpoint, that repeated queries are answered by the
+     * cache and that an unsatisfiable class is a subclass of every class, as in the classification.
+     * <pre>
+     * Axiom added in OWL2:
+     * Squalificato ⊑ ⊥
+     * Queries in OWL2:
+     * GiocatoreTitolare ⊓ GiocatorePanchina ⊑ Giocatore
+     * Squalificato ⊑ Coach
+     * Coach ⊑ GiocatoreTitolare
+     * </pre>
+     */
+    @Test
+    public void POSITIVE_QUERIES_STOP_EARLY() {
+        ontology.getOWLOntologyManager().addAxiom(ontology, of.subclassOf(of.clazz("Squalificato"), of.nothing()));
+        OWLSubClassOfAxiom giocatore = of.subclassOf(of.intersectionOf(of.clazz("GiocatoreTitolare"), of.clazz("GiocatorePanchina")), of.clazz("Giocatore"));
+        OWLSubClassOfAxiom squalificato = of.subclassOf(of.clazz("Squalificato"), of.clazz("Coach"));
+        OWLSubClassOfAxiom coach = of.subclassOf(of.clazz("Coach"), of.clazz("GiocatoreTitolare"));
+
+        for (MyReasoner r : Arrays.asList(reasoner, new MyReasoner(ontology, true))) {
+            List<QueryAnswer> positives = r.answerQueries(Arrays.asList(giocatore, squalificato));
+            for (QueryAnswer answer : positives) {
+                assertTrue(answer.isEntailed());
+                assertEquals(QueryAnswer.Source.EARLY_STOP, answer.source());
+            }
+            assertEquals(1, r.stats().getEarlyStops());
+            assertTrue(r.classify().isSubClassOf(of.clazz("Squalificato"), of.clazz("Coach")));
+
+            List<QueryAnswer> mixed = r.answerQueries(Arrays.asList(giocatore, coach));
+            assertEquals(QueryAnswer.Source.CACHE, mixed.get(0).source());
+            assertFalse(mixed.get(1).isEntailed());
+            assertEquals(QueryAnswer.Source.FIXPOINT, mixed.get(1).source());
+            assertEquals(1, r.stats().getEarlyStops());
+        }
+    }
+
+    /**
+     * Test to check that a query whose subclass is unsatisfiable is entailed whatever the superclass, on the lazy and the
+     * eager reasoner, both when the batch stops early and when it is saturated to the fixpoint, and whether bottom is
+     * derived directly or through a successor (CR5).
+     * <pre>
+     * Axioms added in OWL2:
+     * Squalificato ⊑ ⊥
+     * Sospeso ⊑ ∃ haSquadra.Squalificato
+     * Queries in OWL2:
+     * Squalificato ⊑ Coach
+     * Sospeso ⊑ ∃ iscrittoA.PremierLeague
+     * Coach ⊓ Squalificato ⊑ GiocatoreTitolare
+     * Coach ⊑ GiocatoreTitolare
+     * </pre>
+     */
+    @Test
+    public void UNSATISFIABLE_SUBCLASS_ENTAILS_EVERY_QUERY() {
+        OWLOntologyManager man = ontology.getOWLOntologyManager();
+        man.addAxiom(ontology, of.subclassOf(of.clazz("Squalificato"), of.nothing()));
+        man.addAxiom(ontology, of.subclassOf(of.clazz("Sospeso"), of.someValuesFrom(of.property("haSquadra"), of.clazz("Squalificato"))));
+        List<OWLSubClassOfAxiom> unsatisfiable = Arrays.asList(
+                of.subclassOf(of.clazz("Squalificato"), of.clazz("Coach")),
+                of.subclassOf(of.clazz("Sospeso"), of.someValuesFrom(of.property("iscrittoA"), of.clazz("PremierLeague"))),
+                of.subclassOf(of.intersectionOf(of.clazz("Coach"), of.clazz("Squalificato")), of.clazz("GiocatoreTitolare")));
+        OWLSubClassOfAxiom satisfiable = of.subclassOf(of.clazz("Coach"), of.clazz("GiocatoreTitolare"));
+
+        for (boolean eager : new boolean[]{false, true}) {
+            MyReasoner r = new MyReasoner(ontology, eager, 1, 0);
+            try {
+                for (QueryAnswer answer : r.answerQueries(unsatisfiable)) {
+                    assertTrue(answer.isEntailed());
+                    assertEquals(QueryAnswer.Source.EARLY_STOP, answer.source());
+                }
+                List<OWLSubClassOfAxiom> mixed = new ArrayList<>(unsatisfiable);
+                mixed.add(satisfiable);
+                List<QueryAnswer> answers = r.answerQueries(mixed);
+                for (int i = 0; i < unsatisfiable.size(); i++) {
+                    assertTrue(answers.get(i).isEntailed());
+                    assertEquals(QueryAnswer.Source.FIXPOINT, answers.get(i).source());
+                }
+                assertFalse(answers.get(unsatisfiable.size()).isEntailed());
+                Taxonomy taxonomy = r.classify();
+                assertTrue(taxonomy.isSubClassOf(of.clazz("Sospeso"), of.clazz("GiocatoreTitolare")));
+                assertTrue(taxonomy.equivalentClasses(of.clazz("Squalificato")).contains(of.nothing()));
+            } finally {
+                r.dispose();
+            }
+        }
+    }
+
+    /**
+     * Test to check that the TBox normalized in parallel, with subexpressions shared by many axioms, gets the same
+     * temporary classes and the same classification as the TBox normalized sequentially, also by a lazy reasoner
+     * whose normalization pool was shut down by dispose().
+     * <pre>
+     * Ci ⊑ ∃ haSquadra.(GiocatoreTitolare ⊓ GiocatorePanchina ⊓ Coach), for 200 classes Ci
+     * </pre>
+     */
+    @Test
+    public void PARALLEL_NORMALIZATION_MATCHES_SEQUENTIAL() {
+        OWLClassExpression shared = of.someValuesFrom(of.property("haSquadra"),
+                of.intersectionOf(of.clazz("GiocatoreTitolare"), of.clazz("GiocatorePanchina"), of.clazz("Coach")));
+        for (int i = 0; i < 200; i++) {
+            ontology.getOWLOntologyManager().addAxiom(ontology, of.subclassOf(of.clazz("C" + i), shared));
+        }
+        MyReasoner sequential = new MyReasoner(ontology, true, 1);
+        MyReasoner parallel = new MyReasoner(ontology, true, 4);
+        assertEquals(sequential.stats().getTempClasses(), parallel.stats().getTempClasses());
+        Taxonomy expected = sequential.classify();
+        Taxonomy actual = parallel.classify();
+        MyReasoner lazy = new MyReasoner(ontology, false, 4);
+        Taxonomy lazyParallel = lazy.classify();
+        lazy.dispose();
+        Taxonomy lazyDisposed = lazy.classify();
+        for (OWLClass c : ontology.getClassesInSignature(Imports.EXCLUDED)) {
+            assertEquals(expected.subsumers(c), actual.subsumers(c));
+            assertEquals(expected.subsumers(c), lazyParallel.subsumers(c));
+            assertEquals(expected.subsumers(c), lazyDisposed.subsumers(c));
+        }
+        sequential.dispose();
+        parallel.dispose();
+    }
+
+    /**
+     * Test to check the saturation plan on an ontology without singletons and without Nothing: CR5 and CR6 never fire,
+     * and adding the singletons afterwards enables CR6 for the edges already derived.
+     * <pre>
+     * A ⊑ ∃r.B, B ⊑ D
+     * A ⊑ {a}, B ⊑ {a}
+     * </pre>
+     */
+    @Test
+    public void PLAN_SKIPS_RULES_THAT_CANNOT_FIRE() throws Exception {
+        OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+        OWLOntology o = man.createOntology(IRI.create("http://example.org/plan"));
+        OWLFactory f = new OWLFactory(man, o);
+        man.addAxiom(o, f.subclassOf(f.clazz("A"), f.someValuesFrom(f.property("r"), f.clazz("B"))));
+        man.addAxiom(o, f.subclassOf(f.clazz("B"), f.clazz("D")));
+        OWLSubClassOfAxiom query = f.subclassOf(f.clazz("A"), f.clazz("D"));
+
+        for (boolean eager : new boolean[]{false, true}) {
+            MyReasoner r = new MyReasoner(o, eager);
+            assertFalse(r.doQuery(query));
+            assertEquals(0, r.stats().getRuleFirings()[4]);
+            assertEquals(0, r.stats().getRuleFirings()[5]);
+            r.dispose();
+        }
+
+        MyReasoner eager = new MyReasoner(o, true);
+        man.addAxiom(o, f.subclassOf(f.clazz("A"), f.oneOf(f.individual("a"))));
+        man.addAxiom(o, f.subclassOf(f.clazz("B"), f.oneOf(f.individual("a"))));
+        assertTrue(eager.doQuery(query));
+        assertTrue(eager.classify().isSubClassOf(f.clazz("A"), f.clazz("D")));
+        assertTrue(new MyReasoner(o).doQuery(query));
+        eager.dispose();
+    }
+
+    /**
+     * Test to check that removing a TBox axiom whose normalized form is also the definition of a temporary class keeps
+     * that definition: after each removal, and after adding the axiom back, every answer of the updated eager reasoner
+     * matches a reasoner built on the edited ontology.
+     * <pre>
+     * A0 ⊑ ⊥, ∃r1.A1 ⊑ ∃r1.(∃r0.A0), ∃r0.A0 ⊑ ∃r0.A0
+     * </pre>
+     */
+    @Test
+    public void REMOVALS_KEEP_SHARED_TEMPORARY_DEFINITIONS() throws Exception {
+        OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+        OWLOntology o = man.createOntology(IRI.create("http://example.org/removals"));
+        OWLFactory f = new OWLFactory(man, o);
+        OWLClassExpression r0A0 = f.someValuesFrom(f.property("r0"), f.clazz("A0"));
+        OWLClassExpression r1A1 = f.someValuesFrom(f.property("r1"), f.clazz("A1"));
+        List<OWLSubClassOfAxiom> axioms = Arrays.asList(
+                f.subclassOf(f.clazz("A0"), f.nothing()),
+                f.subclassOf(r1A1, f.someValuesFrom(f.property("r1"), r0A0)),
+                f.subclassOf(r0A0, r0A0));
+        List<OWLSubClassOfAxiom> queries = new ArrayList<>(Arrays.asList(
+                f.subclassOf(r1A1, f.clazz("A5")),
+                f.subclassOf(r0A0, f.clazz("A5")),
+                f.subclassOf(f.someValuesFrom(f.property("r1"), r0A0), f.clazz("A5"))));
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 6; j++) {
+                queries.add(f.subclassOf(f.clazz("A" + i), f.clazz("A" + j)));
+            }
+        }
+        axioms.forEach(o::addAxiom);
+
+        MyReasoner eager = new MyReasoner(o, true, 1, 0);
+        try {
+            assertTrue(eager.doQuery(queries.get(0)));
+            for (OWLSubClassOfAxiom axiom : axioms) {
+                o.removeAxiom(axiom);
+                assertAnswersLikeRebuilt(eager, o, queries);
+                o.addAxiom(axiom);
+                assertAnswersLikeRebuilt(eager, o, queries);
+            }
+        } finally {
+            eager.dispose();
+        }
+    }
+
+    /**
+     * Test to check that classify() after a removal reports only the classes of the edited ontology: A1 appears only in
+     * the removed axiom and leaves the taxonomy, which matches the one of a reasoner built on the edited ontology.
+     * <pre>
+     * ∃r0.(A1 ⊓ A2) ⊑ ∃r1.(A2 ⊓ A4), A2 ⊑ A4, A3 ⊑ ⊥
+     * </pre>
+     */
+    @Test
+    public void CLASSIFY_FORGETS_REMOVED_CLASSES() throws Exception {
+        OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+        OWLOntology o = man.createOntology(IRI.create("http://example.org/classify-removals"));
+        OWLFactory f = new OWLFactory(man, o);
+        OWLSubClassOfAxiom removed = f.subclassOf(
+                f.someValuesFrom(f.property("r0"), f.intersectionOf(f.clazz("A1"), f.clazz("A2"))),
+                f.someValuesFrom(f.property("r1"), f.intersectionOf(f.clazz("A2"), f.clazz("A4"))));
+        o.addAxiom(removed);
+        o.addAxiom(f.subclassOf(f.clazz("A2"), f.clazz("A4")));
+        o.addAxiom(f.subclassOf(f.clazz("A3"), f.nothing()));
+
+        for (boolean eager : new boolean[]{true, false}) {
+            MyReasoner r = new MyReasoner(o, eager);
+            try {
+                assertTrue(r.classify().nodes().stream().anyMatch(node -> node.contains(f.clazz("A1"))));
+                o.removeAxiom(removed);
+                Taxonomy actual = r.classify();
+                MyReasoner rebuilt = new MyReasoner(o, true);
+                Taxonomy expected = rebuilt.classify();
+                rebuilt.dispose();
+                assertTrue(actual.nodes().stream().noneMatch(node -> node.contains(f.clazz("A1"))));
+                assertEquals(expected.nodes(), actual.nodes());
+                assertEquals(expected.directSuperClasses(f.nothing()), actual.directSuperClasses(f.nothing()));
+                for (OWLClass c : o.getClassesInSignature(Imports.EXCLUDED)) {
+                    assertEquals(expected.subsumers(c), actual.subsumers(c));
+                    assertEquals(expected.directSuperClasses(c), actual.directSuperClasses(c));
+                }
+            } finally {
+                r.dispose();
+                o.addAxiom(removed);
+            }
+        }
+    }
+
+    /**
+     * Checks that the incrementally updated reasoner r answers queries like an eager reasoner built on o.
+     */
+    private static void assertAnswersLikeRebuilt(MyReasoner r, OWLOntology o, List<OWLSubClassOfAxiom> queries) {
+        MyReasoner rebuilt = new MyReasoner(o, true);
+        rebuilt.dispose();
+        assertEquals(o.toString(), rebuilt.doQueries(queries), r.doQueries(queries));
+    }
+
+    /**
+     * Test to check that a conjunction nested in another conjunction is normalized like its operands: a nested
+     * conjunction already derived in S(C) still fires the axioms that have it on the left, on lazy and eager reasoners.
+     * <pre>
+     * A4 ⊑ (A1 ⊓ A2) ⊓ ∃r0.A3 ⊓ ∃r0.A5, query A1 ⊓ A4 ⊑ A1 ⊓ A2
+     * A3 ⊑ ∃r0.(A1 ⊓ A2), ∃r0.A2 ⊑ (A0 ⊓ A1) ⊓ ∃r0.A4 ⊓ ∃r1.A1, A0 ⊓ A1 ⊑ A4 ⊓ ∃r1.A0, query A3 ⊑ A4
+     * </pre>
+     */
+    @Test
+    public void NESTED_CONJUNCTIONS_FIRE_THEIR_AXIOMS() throws Exception {
+        OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+        OWLOntology o = man.createOntology(IRI.create("http://example.org/nested"));
+        OWLFactory f = new OWLFactory(man, o);
+        man.addAxiom(o, f.subclassOf(f.clazz("A4"), f.intersectionOf(f.intersectionOf(f.clazz("A1"), f.clazz("A2")),
+                f.someValuesFrom(f.property("r0"), f.clazz("A3")), f.someValuesFrom(f.property("r0"), f.clazz("A5")))));
+        OWLSubClassOfAxiom first = f.subclassOf(f.intersectionOf(f.clazz("A1"), f.clazz("A4")),
+                f.intersectionOf(f.clazz("A1"), f.clazz("A2")));
+
+        man.addAxiom(o, f.subclassOf(f.clazz("A3"), f.someValuesFrom(f.property("r0"), f.intersectionOf(f.clazz("A1"), f.clazz("A2")))));
+        man.addAxiom(o, f.subclassOf(f.someValuesFrom(f.property("r0"), f.clazz("A2")),
+                f.intersectionOf(f.intersectionOf(f.clazz("A0"), f.clazz("A1")),
+                        f.someValuesFrom(f.property("r0"), f.clazz("A4")), f.someValuesFrom(f.property("r1"), f.clazz("A1")))));
+        man.addAxiom(o, f.subclassOf(f.intersectionOf(f.clazz("A0"), f.clazz("A1")),
+                f.intersectionOf(f.clazz("A4"), f.someValuesFrom(f.property("r1"), f.clazz("A0")))));
+        OWLSubClassOfAxiom second = f.subclassOf(f.clazz("A3"), f.clazz("A4"));
+
+        for (boolean eager : new boolean[]{false, true}) {
+            MyReasoner r = new MyReasoner(o, eager);
+            try {
+                assertTrue(r.doQuery(first));
+                assertTrue(r.doQuery(second));
+                assertTrue(r.classify().isSubClassOf(f.clazz("A3"), f.clazz("A4")));
+            } finally {
+                r.dispose();
+            }
+        }
+    }
+
+    /**
+     * Test to check the local server: subsumption queries in text and JSON syntax, sent concurrently, and the
+     * classification and instance queries, on a loopback port. An invalid query sent together with valid ones is
+     * rejected only in its own request.
+     * <pre>
+     * {mario} ⊑ GiocatoreTitolare
+     * </pre>
+     */
+    @Test
+    public void SERVER_ANSWERS_ON_LOOPBACK() throws Exception {
+        ontology.getOWLOntologyManager().addAxiom(ontology, of.subclassOf(of.oneOf(of.individual("mario")), of.clazz("GiocatoreTitolare")));
+        MyReasoner eager = new MyReasoner(ontology, true);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (ReasonerServer server = new ReasonerServer(eager, ontology, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            String base = "http://127.0.0.1:" + server.address().getPort();
+            String text = "GiocatoreTitolare and GiocatorePanchina SubClassOf Giocatore\nGiocatore SubClassOf GiocatoreTitolare\n";
+
+            List<Future<String>> responses = new ArrayList<>();
+            List<Future<String>> rejected = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                responses.add(executor.submit(() -> request("POST", base + "/subsumption", "text/plain", text, 200)));
+                if (i % 4 == 0) {
+                    rejected.add(executor.submit(() -> request("POST", base + "/subsumption", "text/plain",
+                            "Giocatore SubClassOf Nothing\n", 400)));
+                }
+            }
+            for (Future<String> response : responses) {
+                assertEquals("true\nfalse\n", response.get());
+            }
+            for (Future<String> response : rejected) {
+                assertTrue(response.get(), response.get().contains("bottom"));
+            }
+
+            assertEquals("{\"results\":[true,false]}", request("POST", base + "/subsumption", "application/json",
+                    "{\"queries\":[\"{mario} SubClassOf Giocatore\",\"{mario} SubClassOf GiocatorePanchina\"]}", 200));
+            request("POST", base + "/subsumption", "text/plain", "Giocatore SubClassOf and\n", 400);
+            request("POST", base + "/subsumption", "text/plain", "Giocatore\n", 400);
+            request("GET", base + "/subsumption", null, null, 405);
+
+            String classification = request("GET", base + "/classification?class=GiocatoreTitolare", null, null, 200);
+            assertTrue(classification, classification.contains("superClasses: Giocatore"));
+            assertEquals("mario\n", request("GET", base + "/instances?class=Giocatore", null, null, 200));
+            assertTrue(request("GET", base + "/types?individual=mario&direct=true", null, null, 200).contains("GiocatoreTitolare"));
+            request("GET", base + "/instances?class=Sconosciuta", null, null, 400);
+        } finally {
+            executor.shutdown();
+            eager.dispose();
+        }
+    }
+
+    /**
+     * Test to check that the state of each query is released when the query is answered: after the caches are full,
+     * thousands of further queries, all different and with a fresh class each, leave the caches at their capacity, no
+     * query saturation open, and the dictionary and temporary classes of the eager reasoner unchanged. Those of the lazy
+     * reasoner belong to the cached modules, each no larger than the whole TBox.
+     * <pre>
+     * Ci ⊓ Freshn ⊓ ∃ r.Cj ⊑ Ck, for n = 0, 1, 2, ...
+     * </pre>
+     */
+    @Test
+    public void QUERIES_KEEP_RETAINED_STATE_BOUNDED() {
+        List<OWLClass> classes = new ArrayList<>(ontology.getClassesInSignature(Imports.EXCLUDED));
+        classes.removeIf(OWLClass::isBottomEntity);
+        List<OWLObjectProperty> properties = new ArrayList<>(ontology.getObjectPropertiesInSignature(Imports.EXCLUDED));
+        Random random = new Random(1);
+        int[] fresh = {0};
+        Supplier<OWLSubClassOfAxiom> nextQuery = () -> of.subclassOf(
+                of.intersectionOf(classes.get(random.nextInt(classes.size())), of.clazz("Fresh" + fresh[0]++),
+                        of.someValuesFrom(properties.get(random.nextInt(properties.size())), classes.get(random.nextInt(classes.size())))),
+                classes.get(random.nextInt(classes.size())));
+
+        MyReasoner eager = new MyReasoner(ontology, true);
+        try {
+            ReasonerStats tBox = eager.stats();
+            for (MyReasoner r : Arrays.asList(reasoner, eager)) {
+                ReasonerStats stats = r.stats();
+                for (int i = 0; i < 2 * MyReasoner.DEFAULT_CACHE_SIZE; i++) {
+                    r.doQuery(nextQuery.get());
+                }
+                long moduleCacheSize = stats.getModuleCacheSize();
+                for (int i = 0; i < 5000; i++) {
+                    r.doQuery(nextQuery.get());
+                }
+                assertEquals(MyReasoner.DEFAULT_CACHE_SIZE, stats.getCacheSize());
+                assertEquals(moduleCacheSize, stats.getModuleCacheSize());
+                assertEquals(0, stats.getOpenQuerySaturations());
+                assertTrue(stats.getRetainedConcepts() <= Math.max(1, moduleCacheSize) * tBox.getRetainedConcepts());
+                assertTrue(stats.getRetainedTempClasses() <= Math.max(1, moduleCacheSize) * tBox.getRetainedTempClasses());
+            }
+            assertEquals(0, tBox.getModuleCacheSize());
+            MyReasoner reference = new MyReasoner(ontology, true);
+            assertEquals(reference.stats().getRetainedConcepts(), tBox.getRetainedConcepts());
+            assertEquals(reference.stats().getRetainedTempClasses(), tBox.getRetainedTempClasses());
+            reference.dispose();
+        } finally {
+            eager.dispose();
+        }
+    }
+
+    /**
+     * Test to check that a frozen closure answers queries and classification like the mutable one, and that ontology
+     * changes afterwards are still applied to the closure, also after it is frozen again.
+     * <pre>
+     * GiocatoreTitolare ⊑ Coach
+     * </pre>
+     */
+    @Test
+    public void FROZEN_CLOSURE_ANSWERS_LIKE_MUTABLE() {
+        List<OWLClass> classes = new ArrayList<>(ontology.getClassesInSignature(Imports.EXCLUDED));
+        classes.removeIf(OWLClass::isBottomEntity);
+        MyReasoner mutable = new MyReasoner(ontology, true);
+        MyReasoner frozen = new MyReasoner(ontology, true);
+        frozen.freeze();
+        assertFalse(frozen.doQuery(of.subclassOf(of.clazz("GiocatoreTitolare"), of.clazz("Coach"))));
+
+        for (int round = 0; round < 2; round++) {
+            for (OWLClass sub : classes) {
+                for (OWLClass sup : classes) {
+                    OWLSubClassOfAxiom query = of.subclassOf(sub, sup);
+                    assertEquals(query.toString(), mutable.doQuery(query), frozen.doQuery(query));
+                }
+            }
+            Taxonomy expected = mutable.classify();
+            Taxonomy actual = frozen.classify();
+            for (OWLClass c : classes) {
+                assertEquals(expected.subsumers(c), actual.subsumers(c));
+            }
+            ontology.getOWLOntologyManager().addAxiom(ontology, of.subclassOf(of.clazz("GiocatoreTitolare"), of.clazz("Coach")));
+        }
+        assertTrue(frozen.doQuery(of.subclassOf(of.clazz("GiocatoreTitolare"), of.clazz("Coach"))));
+        frozen.freeze();
+        ontology.removeAxiom(of.subclassOf(of.clazz("GiocatoreTitolare"), of.clazz("Coach")));
+        assertFalse(frozen.doQuery(of.subclassOf(of.clazz("GiocatoreTitolare"), of.clazz("Coach"))));
+        assertEquals(mutable.classify().subsumers(of.clazz("GiocatoreTitolare")), frozen.classify().subsumers(of.clazz("GiocatoreTitolare")));
+        mutable.dispose();
+        frozen.dispose();
+    }
+
+    /**
+     * The queries shared by the tests that compare a reasoner against the expected answers REFERENCE_ANSWERS.
+     * <pre>
+     * Query in OWL2:
+     * GiocatoreTitolare ⊓ GiocatorePanchina ⊑ Giocatore
+     * GiocatorePanchina ⊑ ∃ haSquadra.Dirigente
+     * Coach ⊑ ∃ iscrittoA.PremierLeague
+     * GiocatoreTitolare ⊑ ∃ trasferta.{liverpool}
+     * </pre>
+     */
+    private List<OWLSubClassOfAxiom> referenceQueries() {
+        return Arrays.asList(
+                of.subclassOf(
+                        of.intersectionOf(of.clazz("GiocatoreTitolare"), of.clazz("GiocatorePanchina")),
+                        of.clazz("Giocatore")),
+                of.subclassOf(
+                        of.clazz("GiocatorePanchina"),
+                        of.someValuesFrom(of.property("haSquadra"), of.clazz("Dirigente"))),
+                of.subclassOf(
+                        of.clazz("Coach"),
+                        of.someValuesFrom(of.property("iscrittoA"), of.clazz("PremierLeague"))),
+                of.subclassOf(
+                        of.clazz("GiocatoreTitolare"),
+                        of.someValuesFrom(of.property("trasferta"), of.oneOf(of.individual("liverpool")))));
+    }
+
+    /**
+     * Checks that r answers the batch of referenceQueries() with REFERENCE_ANSWERS.
+     */
+    private void assertReferenceAnswers(MyReasoner r) {
+        assertEquals(REFERENCE_ANSWERS, r.doQueries(referenceQueries()));
+    }
+
+    private static String request(String method, String url, String contentType, String body, int expectedStatus) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(url, expectedStatus, connection.getResponseCode());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = expectedStatus == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
 }